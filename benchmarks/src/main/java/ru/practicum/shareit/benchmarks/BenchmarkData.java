@@ -0,0 +1,64 @@
+package ru.practicum.shareit.benchmarks;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BenchmarkData {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    public static User user(long id) {
+        return new User(id, "user" + id, "user" + id + "@mail.ru");
+    }
+
+    public static ItemRequest itemRequest(long id) {
+        return ItemRequest.builder()
+                .id(id)
+                .description("нужна дрель " + id)
+                .requester(user(id))
+                .created(NOW)
+                .build();
+    }
+
+    public static List<Item> items(int size) {
+        List<Item> items = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            Item item = new Item(i, "Дрель " + i, "Аккумуляторная дрель " + i, i % 2 == 0);
+            item.setOwnerId(1L);
+            item.setItemRequest(i % 3 == 0 ? itemRequest(i) : null);
+            items.add(item);
+        }
+        return items;
+    }
+
+    public static List<Booking> bookings(int size) {
+        List<Item> items = items(size);
+        List<Booking> bookings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            bookings.add(Booking.builder()
+                    .id((long) i + 1)
+                    .start(NOW.plusHours(i))
+                    .end(NOW.plusHours(i + 1))
+                    .item(items.get(i))
+                    .booker(user(i + 2))
+                    .status(BookingStatus.values()[i % BookingStatus.values().length])
+                    .build());
+        }
+        return bookings;
+    }
+
+    public static List<CommentDto> comments(int size) {
+        List<CommentDto> comments = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            comments.add(new CommentDto(i, "все отлично работает " + i, null, "user" + i, NOW));
+        }
+        return comments;
+    }
+}
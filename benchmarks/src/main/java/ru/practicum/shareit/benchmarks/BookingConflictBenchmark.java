@@ -0,0 +1,135 @@
+package ru.practicum.shareit.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.exception.BookingConflictException;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingSummaryService;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+//потоки бронируют и сразу подтверждают пересекающиеся слоты; после прогона проверяется,
+//что у вещи нет двух пересекающихся подтвержденных бронирований. itemCount=1 - все потоки на одной вещи
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(8)
+@Fork(1)
+public class BookingConflictBenchmark {
+    //слоты по часу длиной два часа: соседние пересекаются
+    private static final int SLOTS = 2000;
+
+    @Param({"1", "64"})
+    private int itemCount;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private BookingRepository bookingRepository;
+    private long ownerId;
+    private final List<Long> bookerIds = new ArrayList<>();
+    private final List<Long> itemIds = new ArrayList<>();
+    private LocalDateTime base;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:conflicts;MODE=PostgreSQL;LOCK_TIMEOUT=10000",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.hikari.maximum-pool-size=16",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN");
+        bookingService = context.getBean(BookingService.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+        fill(context.getBean(UserRepository.class), context.getBean(ItemRepository.class),
+                context.getBean(BookingSummaryService.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        try {
+            checkNoDoubleBookings();
+        } finally {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long approved;
+        public long conflicts;
+    }
+
+    @Benchmark
+    public void bookAndApprove(Outcomes outcomes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long itemId = itemIds.get(random.nextInt(itemIds.size()));
+        LocalDateTime start = base.plusHours(random.nextInt(SLOTS));
+        try {
+            long bookingId = bookingService.addBooking(new BookingDtoShort(itemId, start, start.plusHours(2)),
+                    bookerIds.get(random.nextInt(bookerIds.size()))).getId();
+            bookingService.approve(bookingId, ownerId, true);
+            outcomes.approved++;
+        } catch (BookingConflictException e) {
+            outcomes.conflicts++;
+        }
+    }
+
+    private void checkNoDoubleBookings() {
+        Map<Long, List<Booking>> approved = bookingRepository.findAllOverlapping(itemIds, BookingStatus.APPROVED,
+                        base, base.plusHours(SLOTS + 2)).stream()
+                .collect(Collectors.groupingBy(obj -> obj.getItem().getId()));
+        int total = 0;
+        for (Map.Entry<Long, List<Booking>> entry : approved.entrySet()) {
+            List<Booking> bookings = entry.getValue();
+            bookings.sort(Comparator.comparing(Booking::getStart));
+            for (int i = 1; i < bookings.size(); i++) {
+                if (bookings.get(i).getStart().isBefore(bookings.get(i - 1).getEnd())) {
+                    throw new IllegalStateException(String.format("двойное бронирование вещи %d: %d и %d",
+                            entry.getKey(), bookings.get(i - 1).getId(), bookings.get(i).getId()));
+                }
+            }
+            total += bookings.size();
+        }
+        System.out.printf("%nпересечений нет: %d подтвержденных бронирований на %d вещах%n", total, approved.size());
+    }
+
+    private void fill(UserRepository userRepository, ItemRepository itemRepository,
+                      BookingSummaryService bookingSummaryService) {
+        ownerId = userRepository.save(new User(null, "owner", "owner@mail.ru")).getId();
+        for (int i = 0; i < 8; i++) {
+            bookerIds.add(userRepository.save(new User(null, "booker" + i, "booker" + i + "@mail.ru")).getId());
+        }
+        for (int i = 0; i < itemCount; i++) {
+            Item item = new Item(null, "Дрель " + i, "Аккумуляторная дрель " + i, true);
+            item.setOwnerId(ownerId);
+            item = itemRepository.save(item);
+            bookingSummaryService.addItem(item.getId());
+            itemIds.add(item.getId());
+        }
+        base = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+//пачка одновременных запросов через шлюз: при concurrency больше пула Tomcat (200) платформенные потоки
+//ставят запросы в очередь, виртуальные обрабатывают все сразу
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ConcurrencyScalingBenchmark {
+    private static final int PAGES = 20;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"100", "400", "1600"})
+    private int concurrency;
+
+    @Param({"500"})
+    private int itemCount;
+
+    private ShareItStand stand;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        boolean virtual = threads.equals("virtual");
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("виртуальные потоки доступны с JDK 21, запустите форк на нем: -jvm <jdk21>/bin/java");
+        }
+        //пул соединений шлюза с сервером не должен ограничивать параллельность сильнее, чем потоки
+        String args = "--spring.threads.virtual.enabled=" + virtual;
+        stand = ShareItStand.start(args, args + " --shareit-server.pool.max-connections=" + concurrency);
+        stand.seed(itemCount / 10, itemCount / 5, itemCount, itemCount / 5, 4);
+    }
+
+    @TearDown
+    public void tearDown() {
+        stand.close();
+    }
+
+    //все ключи в пачке разные, чтобы шлюз не объединял запросы
+    @Benchmark
+    public int burst() {
+        List<Long> bookers = stand.getBookers();
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            int from = i / bookers.size() % PAGES;
+            responses[i] = stand.getAsync("/bookings?state=ALL&from=" + from + "&size=1",
+                            bookers.get(i % bookers.size()))
+                    .thenAccept(status -> {
+                        if (status / 100 != 2) {
+                            throw new IllegalStateException("шлюз ответил " + status);
+                        }
+                    });
+        }
+        CompletableFuture.allOf(responses).join();
+        return concurrency;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.shareit.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+//выборки бронирований через шлюз на настройках по умолчанию и в профиле prod (пул по ядрам, кэш планов,
+//выравнивание IN). Стенд по умолчанию на H2 - настройки драйвера PostgreSQL в нем не участвуют,
+//для PostgreSQL поднимите стенд в обоих профилях и сравните прогоны с -Dshareit.gateway.url/-Dshareit.server.url
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class DataSourceProfileBenchmark {
+    private static final String[] STATES = {"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"};
+    private static final String PAGE = "from=0&size=20";
+
+    @Param({"default", "prod"})
+    private String profile;
+
+    @Param({"500"})
+    private int itemCount;
+
+    private ShareItStand stand;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        stand = ShareItStand.start(profile.equals("prod") ? "--spring.profiles.active=prod" : "", "");
+        stand.seed(itemCount / 10, itemCount / 5, itemCount, itemCount / 5, 4);
+    }
+
+    @TearDown
+    public void tearDown() {
+        stand.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private int counter;
+
+        private int next(int bound) {
+            return Math.floorMod(counter++, bound);
+        }
+    }
+
+    @Benchmark
+    @Group("listing")
+    @GroupThreads(4)
+    public String bookings(Client client) throws IOException, InterruptedException {
+        return stand.get("/bookings?state=" + STATES[client.next(STATES.length)] + "&" + PAGE,
+                stand.getBookers().get(client.next(stand.getBookers().size())));
+    }
+
+    @Benchmark
+    @Group("listing")
+    @GroupThreads(4)
+    public String ownerBookings(Client client) throws IOException, InterruptedException {
+        return stand.get("/bookings/owner?state=" + STATES[client.next(STATES.length)] + "&" + PAGE,
+                stand.getOwners().get(client.next(stand.getOwners().size())));
+    }
+}
@@ -0,0 +1,83 @@
+package ru.practicum.shareit.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static ru.practicum.shareit.benchmarks.ShareItStand.WORDS;
+import static ru.practicum.shareit.benchmarks.ShareItStand.encode;
+
+//смешанная нагрузка через шлюз: каждый метод группы - свой эндпоинт со своими p50/p99 и пропускной способностью
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class GatewayLoadBenchmark {
+    private static final String PAGE = "from=0&size=20";
+
+    @Param({"500"})
+    private int itemCount;
+
+    private ShareItStand stand;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        stand = ShareItStand.start();
+        stand.seed(itemCount / 10, itemCount / 5, itemCount, itemCount / 5, 4);
+    }
+
+    @TearDown
+    public void tearDown() {
+        stand.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private int counter;
+
+        private int next(int bound) {
+            return Math.floorMod(counter++, bound);
+        }
+    }
+
+    @Benchmark
+    @Group("mix")
+    @GroupThreads(2)
+    public String bookings(Client client) throws IOException, InterruptedException {
+        return stand.get("/bookings?state=ALL&" + PAGE,
+                stand.getBookers().get(client.next(stand.getBookers().size())));
+    }
+
+    @Benchmark
+    @Group("mix")
+    @GroupThreads(1)
+    public String ownerBookings(Client client) throws IOException, InterruptedException {
+        return stand.get("/bookings/owner?state=ALL&" + PAGE,
+                stand.getOwners().get(client.next(stand.getOwners().size())));
+    }
+
+    @Benchmark
+    @Group("mix")
+    @GroupThreads(2)
+    public String items(Client client) throws IOException, InterruptedException {
+        return stand.get("/items?" + PAGE, stand.getOwners().get(client.next(stand.getOwners().size())));
+    }
+
+    @Benchmark
+    @Group("mix")
+    @GroupThreads(2)
+    public String search(Client client) throws IOException, InterruptedException {
+        return stand.get("/items/search?text=" + encode(WORDS[client.next(WORDS.length)]) + "&" + PAGE,
+                stand.getBookers().get(0));
+    }
+
+    @Benchmark
+    @Group("mix")
+    @GroupThreads(1)
+    public String requests(Client client) throws IOException, InterruptedException {
+        return stand.get("/requests/all?" + PAGE, stand.getOwners().get(client.next(stand.getOwners().size())));
+    }
+}
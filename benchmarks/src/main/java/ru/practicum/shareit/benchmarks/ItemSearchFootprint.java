@@ -0,0 +1,83 @@
+package ru.practicum.shareit.benchmarks;
+
+import ru.practicum.shareit.item.search.InMemoryItemSearch;
+import ru.practicum.shareit.item.search.IndexedItem;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//память индекса InMemoryItemSearch: строит индекс по синтетическим вещам тем же rebuild, что и при старте сервера,
+//и печатает разницу занятой кучи после сборки мусора до и после построения
+public class ItemSearchFootprint {
+    private static final int DEFAULT_ITEMS = 1_000_000;
+    private static final int BATCH_SIZE = 10_000;
+    private static final String[] WORDS = {"дрель", "перфоратор", "шуруповерт", "лобзик", "болгарка", "рубанок",
+            "стремянка", "палатка", "спальник", "велосипед", "самокат", "ролики", "лыжи", "сноуборд", "коньки",
+            "проектор", "колонка", "фотоаппарат", "штатив", "объектив", "гитара", "синтезатор", "микрофон",
+            "мангал", "казан", "термос", "рюкзак", "котелок", "фонарь", "компрессор", "насос", "пылесос",
+            "аккумуляторная", "ударная", "складная", "туристическая", "детская", "профессиональная", "новая",
+            "легкая", "мощная", "компактная", "зимняя", "летняя", "электрическая", "ручная", "большая", "малая"};
+
+    //аргумент - число вещей, по умолчанию миллион; запускать с -Xmx2g
+    public static void main(String[] args) throws InterruptedException {
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITEMS;
+        InMemoryItemSearch search = new InMemoryItemSearch(syntheticRepository(itemCount), BATCH_SIZE);
+
+        long before = usedHeapAfterGc();
+        search.rebuild();
+        long after = usedHeapAfterGc();
+
+        long retained = after - before;
+        System.out.printf("вещей: %d%n", itemCount);
+        System.out.printf("удерживаемая куча индекса: %d MB%n", retained / (1024 * 1024));
+        System.out.printf("на вещь: %d байт%n", retained / itemCount);
+        System.out.printf("на миллион вещей: %d MB%n", retained * 1_000_000L / itemCount / (1024 * 1024));
+        //индекс должен дожить до второго замера
+        System.out.println(search.getClass().getSimpleName() + " готов");
+    }
+
+    //репозиторий отдает только то, что нужно rebuild: максимальный id и пачки проекций
+    private static ItemRepository syntheticRepository(int itemCount) {
+        return (ItemRepository) Proxy.newProxyInstance(ItemRepository.class.getClassLoader(),
+                new Class<?>[]{ItemRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findMaxId":
+                            return (long) itemCount;
+                        case "findAllIndexedItems":
+                            return indexedItems((Long) args[0], (Long) args[1]);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    //id из (fromId, toId]; текст зависит только от id, поэтому параллельные пачки воспроизводимы
+    private static List<IndexedItem> indexedItems(long fromId, long toId) {
+        List<IndexedItem> items = new ArrayList<>((int) (toId - fromId));
+        for (long id = fromId + 1; id <= toId; id++) {
+            Random random = new Random(id);
+            String name = word(random) + " " + word(random) + " " + id;
+            String description = word(random) + " " + word(random) + " " + word(random) + " модель " + id;
+            items.add(new IndexedItem(id, name, description, id % 2 == 0));
+        }
+        return items;
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.util.BookingMapper;
+import ru.practicum.shareit.util.ItemMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+    @Param({"10", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<ItemDto> itemDtos;
+    private List<BookingDto> bookingDtos;
+
+    @Setup
+    public void setUp() {
+        //настройки как у ObjectMapper из JacksonAutoConfiguration
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        List<Booking> bookings = BenchmarkData.bookings(size);
+        bookingDtos = BookingMapper.listToBookingDto(bookings);
+        itemDtos = BenchmarkData.items(size).stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+        for (int i = 0; i < itemDtos.size(); i++) {
+            ItemDto itemDto = itemDtos.get(i);
+            itemDto.setLastBooking(BookingMapper.toItemBookingDto(bookings.get(i)));
+            itemDto.setNextBooking(BookingMapper.toItemBookingDto(bookings.get(bookings.size() - 1 - i)));
+            itemDto.setComments(BenchmarkData.comments(3));
+        }
+    }
+
+    @Benchmark
+    public byte[] itemDtoToJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(itemDtos);
+    }
+
+    @Benchmark
+    public byte[] bookingDtoToJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookingDtos);
+    }
+}
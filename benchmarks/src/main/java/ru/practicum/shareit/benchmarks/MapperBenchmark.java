@@ -0,0 +1,65 @@
+package ru.practicum.shareit.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.ForItemBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.util.BookingMapper;
+import ru.practicum.shareit.util.ItemMapper;
+import ru.practicum.shareit.util.RequestMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    @Param({"10", "1000"})
+    private int size;
+
+    private List<Booking> bookings;
+    private List<Item> items;
+    private ItemRequest itemRequest;
+
+    @Setup
+    public void setUp() {
+        bookings = BenchmarkData.bookings(size);
+        items = BenchmarkData.items(size);
+        itemRequest = BenchmarkData.itemRequest(1);
+    }
+
+    @Benchmark
+    public List<BookingDto> bookingToDto() {
+        return BookingMapper.listToBookingDto(bookings);
+    }
+
+    @Benchmark
+    public List<ForItemBookingDto> bookingToItemBookingDto() {
+        return bookings.stream()
+                .map(BookingMapper::toItemBookingDto)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ItemDto> itemToDto() {
+        return items.stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public ItemRequestDto requestToDto() {
+        return RequestMapper.toDto(itemRequest, items.stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList()));
+    }
+}
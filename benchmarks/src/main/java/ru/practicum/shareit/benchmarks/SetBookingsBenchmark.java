@@ -0,0 +1,153 @@
+package ru.practicum.shareit.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingSummaryService;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SetBookingsBenchmark {
+    private static final String LAST_BOOKINGS_CORRELATED = "select b from Booking b " +
+            "join fetch b.booker " +
+            "where b.item.id in :itemIds " +
+            "and b.status <> :status " +
+            "and b.start = (select max(l.start) from Booking l " +
+            "where l.item.id = b.item.id and l.status <> :status and l.start < :time)";
+    private static final String NEXT_BOOKINGS_CORRELATED = "select b from Booking b " +
+            "join fetch b.booker " +
+            "where b.item.id in :itemIds " +
+            "and b.status <> :status " +
+            "and b.start = (select min(n.start) from Booking n " +
+            "where n.item.id = b.item.id and n.status <> :status and n.start > :time)";
+
+    @Param({"20"})
+    private int itemCount;
+
+    @Param({"10", "500"})
+    private int bookingsPerItem;
+
+    private ConfigurableApplicationContext context;
+    private ItemServiceImpl itemService;
+    private BookingRepository bookingRepository;
+    private EntityManagerFactory entityManagerFactory;
+    private List<Long> itemIds;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmarks;MODE=PostgreSQL",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN");
+        itemService = context.getBean(ItemServiceImpl.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        fill(context.getBean(UserRepository.class), context.getBean(ItemRepository.class),
+                context.getBean(BookingSummaryService.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ItemDto> setBookings() {
+        return itemService.setBookings(itemIds.stream()
+                .map(id -> ItemDto.builder().id(id).build())
+                .collect(Collectors.toList()));
+    }
+
+    //запрос, которым проекция пересчитывается: id last/next по индексу (item_id, start_date) и загрузка бронирований
+    @Benchmark
+    public List<Booking> lastAndNextBookingsQuery() {
+        Set<Long> bookingIds = bookingRepository.findLastAndNextBookingIds(itemIds, LocalDateTime.now(),
+                        BookingStatus.REJECTED.name()).stream()
+                .flatMap(row -> Stream.of(row[1], row[2]))
+                .filter(Objects::nonNull)
+                .map(obj -> ((Number) obj).longValue())
+                .collect(Collectors.toSet());
+        return bookingRepository.findAllWithItemAndBookerByIdIn(bookingIds);
+    }
+
+    //прежний вариант для сравнения: каждая строка сверяется с max/min по всем бронированиям вещи
+    @Benchmark
+    public List<Booking> correlatedSubqueries() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> result = new ArrayList<>(correlatedQuery(LAST_BOOKINGS_CORRELATED, now));
+        result.addAll(correlatedQuery(NEXT_BOOKINGS_CORRELATED, now));
+        return result;
+    }
+
+    private List<Booking> correlatedQuery(String query, LocalDateTime now) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.createQuery(query, Booking.class)
+                    .setParameter("itemIds", itemIds)
+                    .setParameter("time", now)
+                    .setParameter("status", BookingStatus.REJECTED)
+                    .getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private void fill(UserRepository userRepository, ItemRepository itemRepository,
+                      BookingSummaryService bookingSummaryService) {
+        User owner = userRepository.save(new User(null, "owner", "owner@mail.ru"));
+        User booker = userRepository.save(new User(null, "booker", "booker@mail.ru"));
+        LocalDateTime now = LocalDateTime.now();
+        itemIds = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            Item item = new Item(null, "Дрель " + i, "Аккумуляторная дрель " + i, true);
+            item.setOwnerId(owner.getId());
+            item = itemRepository.save(item);
+            bookingSummaryService.addItem(item.getId());
+            itemIds.add(item.getId());
+            //половина бронирований в прошлом, половина в будущем
+            for (int j = 0; j < bookingsPerItem; j++) {
+                LocalDateTime start = now.plusDays(j - bookingsPerItem / 2);
+                Booking booking = bookingRepository.save(Booking.builder()
+                        .start(start)
+                        .end(start.plusHours(1))
+                        .item(item)
+                        .booker(booker)
+                        .status(j % 5 == 0 ? BookingStatus.REJECTED : BookingStatus.APPROVED)
+                        .build());
+                if (booking.getStatus() != BookingStatus.REJECTED) {
+                    bookingSummaryService.addBooking(booking);
+                }
+            }
+        }
+    }
+}
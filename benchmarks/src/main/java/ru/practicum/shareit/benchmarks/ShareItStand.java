@@ -0,0 +1,261 @@
+package ru.practicum.shareit.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+//сервер и шлюз в отдельных процессах (классы обоих приложений в одном пакете), либо уже запущенный стенд
+public class ShareItStand implements AutoCloseable {
+    public static final String[] WORDS = {"дрель", "пила", "отвертка", "молоток", "лестница", "палатка",
+            "велосипед", "проектор", "перфоратор", "самокат"};
+
+    private static final String HEADER_USER_ID = "X-Sharer-User-Id";
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Process> processes = new ArrayList<>();
+    private final Random random = new Random(42);
+    private String gatewayUrl;
+    private String serverUrl;
+
+    private final List<Long> owners = new ArrayList<>();
+    private final List<Long> bookers = new ArrayList<>();
+
+    public static ShareItStand start() throws IOException, InterruptedException {
+        return start("", "");
+    }
+
+    //аргументы добавляются к -Dshareit.server.args и -Dshareit.gateway.args, для уже запущенного стенда не действуют
+    public static ShareItStand start(String serverArgs, String gatewayArgs) throws IOException, InterruptedException {
+        ShareItStand stand = new ShareItStand();
+        try {
+            stand.gatewayUrl = System.getProperty("shareit.gateway.url");
+            stand.serverUrl = System.getProperty("shareit.server.url");
+            if (stand.gatewayUrl == null || stand.serverUrl == null) {
+                stand.launch(serverArgs, gatewayArgs);
+            }
+            return stand;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            stand.close();
+            throw e;
+        }
+    }
+
+    public String getGatewayUrl() {
+        return gatewayUrl;
+    }
+
+    public List<Long> getOwners() {
+        return owners;
+    }
+
+    public List<Long> getBookers() {
+        return bookers;
+    }
+
+    public String get(String path, long userId) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(gatewayUrl + path))
+                .header(HEADER_USER_ID, String.valueOf(userId))
+                .GET()
+                .build());
+    }
+
+    public CompletableFuture<Integer> getAsync(String path, long userId) {
+        return httpClient.sendAsync(HttpRequest.newBuilder(URI.create(gatewayUrl + path))
+                        .header(HEADER_USER_ID, String.valueOf(userId))
+                        .GET()
+                        .build(), HttpResponse.BodyHandlers.discarding())
+                .thenApply(HttpResponse::statusCode);
+    }
+
+    public static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    //пользователи, вещи (часть по запросам), бронирования в прошлом и будущем, отзывы
+    public void seed(int ownerCount, int bookerCount, int itemCount, int requestCount, int bookingsPerItem)
+            throws IOException, InterruptedException {
+        String prefix = Long.toString(System.nanoTime(), 36);
+        for (int i = 0; i < ownerCount; i++) {
+            owners.add(addUser("owner" + i, prefix + "-owner" + i + "@mail.ru"));
+        }
+        for (int i = 0; i < bookerCount; i++) {
+            bookers.add(addUser("booker" + i, prefix + "-booker" + i + "@mail.ru"));
+        }
+        List<Long> requests = new ArrayList<>(requestCount);
+        for (int i = 0; i < requestCount; i++) {
+            requests.add(id(post(gatewayUrl, "/requests", randomOf(bookers),
+                    String.format("{\"description\":\"нужна %s %d\"}", randomOf(WORDS), i))));
+        }
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < itemCount; i++) {
+            long ownerId = owners.get(i % owners.size());
+            String requestId = i % 3 == 0 && !requests.isEmpty() ? String.valueOf(randomOf(requests)) : "null";
+            long itemId = id(post(gatewayUrl, "/items", ownerId, String.format(
+                    "{\"name\":\"%s %d\",\"description\":\"%s, почти новая: %s\",\"available\":true,\"requestId\":%s}",
+                    WORDS[i % WORDS.length], i, randomOf(WORDS), randomOf(WORDS), requestId)));
+            //прошлое бронирование создается напрямую на сервере: шлюз принимает только будущие даты
+            long pastBookerId = randomOf(bookers);
+            long pastBookingId = id(post(serverUrl, "/bookings", pastBookerId, booking(itemId,
+                    now.minusDays(10).plusMinutes(i), now.minusDays(9).plusMinutes(i))));
+            patch(gatewayUrl, "/bookings/" + pastBookingId + "?approved=true", ownerId);
+            post(gatewayUrl, "/items/" + itemId + "/comment", pastBookerId,
+                    String.format("{\"text\":\"%s отличная, спасибо\"}", randomOf(WORDS)));
+            for (int j = 0; j < bookingsPerItem; j++) {
+                LocalDateTime start = now.plusDays(j + 1).plusMinutes(i);
+                long bookingId = id(post(gatewayUrl, "/bookings", randomOf(bookers),
+                        booking(itemId, start, start.plusHours(12))));
+                if (j % 2 == 0) {
+                    patch(gatewayUrl, "/bookings/" + bookingId + "?approved=" + (j % 4 == 0), ownerId);
+                }
+            }
+        }
+    }
+
+    public <T> T randomOf(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private String randomOf(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private void launch(String serverArgs, String gatewayArgs) throws IOException, InterruptedException {
+        int serverPort = freePort();
+        int gatewayPort = freePort();
+        serverUrl = "http://localhost:" + serverPort;
+        gatewayUrl = "http://localhost:" + gatewayPort;
+        List<String> serverCommand = javaCommand(System.getProperty("shareit.server.jar",
+                "server/target/shareit-server-0.0.1-SNAPSHOT-exec.jar"));
+        serverCommand.addAll(List.of("--server.port=" + serverPort,
+                "--spring.datasource.driverClassName=org.h2.Driver",
+                "--spring.datasource.url=jdbc:h2:mem:shareit;MODE=PostgreSQL",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password="));
+        addArgs(serverCommand, System.getProperty("shareit.server.args"));
+        addArgs(serverCommand, serverArgs);
+        processes.add(startProcess(serverCommand, "loadtest-server.log"));
+        waitForStart(serverUrl);
+
+        List<String> gatewayCommand = javaCommand(System.getProperty("shareit.gateway.jar",
+                "gateway/target/shareit-gateway-0.0.1-SNAPSHOT.jar"));
+        gatewayCommand.addAll(List.of("--server.port=" + gatewayPort, "--shareit-server.url=" + serverUrl));
+        addArgs(gatewayCommand, System.getProperty("shareit.gateway.args"));
+        addArgs(gatewayCommand, gatewayArgs);
+        processes.add(startProcess(gatewayCommand, "loadtest-gateway.log"));
+        waitForStart(gatewayUrl);
+    }
+
+    private List<String> javaCommand(String jar) {
+        if (!new File(jar).isFile()) {
+            throw new IllegalStateException(String.format("не найден %s, соберите проект: mvn -Pbenchmarks clean package", jar));
+        }
+        return new ArrayList<>(List.of(System.getProperty("java.home") + "/bin/java", "-jar", jar));
+    }
+
+    private void addArgs(List<String> command, String args) {
+        if (args != null && !args.isBlank()) {
+            command.addAll(List.of(args.trim().split("\\s+")));
+        }
+    }
+
+    private Process startProcess(List<String> command, String logFile) throws IOException {
+        File logDir = new File(System.getProperty("shareit.log.dir", "benchmarks/target"));
+        logDir.mkdirs();
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File(logDir, logFile))
+                .start();
+    }
+
+    private void waitForStart(String url) throws InterruptedException {
+        long deadline = System.nanoTime() + START_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                httpClient.send(HttpRequest.newBuilder(URI.create(url + "/users")).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (IOException e) {
+                Thread.sleep(500);
+            }
+        }
+        throw new IllegalStateException(String.format("%s не запустился за %s", url, START_TIMEOUT));
+    }
+
+    private long addUser(String name, String email) throws IOException, InterruptedException {
+        return id(post(gatewayUrl, "/users", null, String.format("{\"name\":\"%s\",\"email\":\"%s\"}", name, email)));
+    }
+
+    private String booking(long itemId, LocalDateTime start, LocalDateTime end) {
+        return String.format("{\"itemId\":%d,\"start\":\"%s\",\"end\":\"%s\"}", itemId, start, end);
+    }
+
+    private String post(String url, String path, Long userId, String body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (userId != null) {
+            request.header(HEADER_USER_ID, String.valueOf(userId));
+        }
+        return send(request.build());
+    }
+
+    private String patch(String url, String path, long userId) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(url + path))
+                .header(HEADER_USER_ID, String.valueOf(userId))
+                .method("PATCH", HttpRequest.BodyPublishers.noBody())
+                .build());
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(String.format("%s %s -> %d: %s",
+                    request.method(), request.uri(), response.statusCode(), response.body()));
+        }
+        return response.body();
+    }
+
+    private long id(String body) throws IOException {
+        JsonNode node = objectMapper.readTree(body);
+        return node.get("id").asLong();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Process process : processes) {
+            process.destroy();
+        }
+        for (Process process : processes) {
+            try {
+                process.waitFor();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -1,33 +1,33 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
 import ru.practicum.shareit.booking.dto.BookingState;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerTransportFactory;
 
+import java.util.List;
 import java.util.Map;
 
+import static ru.practicum.shareit.client.ResponseCache.ITEMS_REGION;
+
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public BookingClient(ServerTransportFactory transportFactory, ResponseCache responseCache) {
+        super(transportFactory.create(API_PREFIX), responseCache, ITEMS_REGION);
     }
 
-    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getBookings(long userId, BookingState state, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
@@ -36,23 +36,40 @@ public class BookingClient extends BaseClient {
         return get("?state={state}&from={from}&size={size}", userId, parameters);
     }
 
+    public Mono<ResponseEntity<Object>> getBookings(long userId, BookingState state, String cursor, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "cursor", cursor,
+                "size", size
+        );
+        return get("?state={state}&cursor={cursor}&size={size}", userId, parameters);
+    }
+
 
-    public ResponseEntity<Object> bookItem(long userId, BookItemRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> bookItem(long userId, BookItemRequestDto requestDto) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> getBooking(long userId, Long bookingId) {
+    public Mono<ResponseEntity<Object>> bookItems(long userId, List<BookItemRequestDto> requestDtos) {
+        return post("/batch", userId, requestDtos);
+    }
+
+    public Mono<ResponseEntity<Object>> getBooking(long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> approve(Long bookingId, Long userId, Boolean approved) {
+    public Mono<ResponseEntity<Object>> approve(Long bookingId, Long userId, Boolean approved) {
         Map<String, Object> parameters = Map.of(
                 "approved", approved
         );
         return patch("/" + bookingId + "?approved={approved}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getBookingsByOwner(Long userId, BookingState state, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> approveAll(long userId, List<BookingDecisionDto> decisions) {
+        return patch("/approve", userId, decisions);
+    }
+
+    public Mono<ResponseEntity<Object>> getBookingsByOwner(Long userId, BookingState state, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
@@ -60,4 +77,20 @@ public class BookingClient extends BaseClient {
         );
         return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
     }
+
+    public Mono<ResponseEntity<Object>> getBookingsByOwner(Long userId, BookingState state, String cursor, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "cursor", cursor,
+                "size", size
+        );
+        return get("/owner?state={state}&cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<StreamingResponseBody>> exportBookingsByOwner(Long userId, BookingExportFormat format) {
+        Map<String, Object> parameters = Map.of(
+                "format", format.name().toLowerCase()
+        );
+        return stream("/owner/export?format={format}", userId, parameters);
+    }
 }
@@ -6,14 +6,21 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.exceptions.model.BadRequestException;
 
-import javax.validation.Valid;
-import javax.validation.constraints.NotNull;
-import javax.validation.constraints.Positive;
-import javax.validation.constraints.PositiveOrZero;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import java.util.List;
 
 import static ru.practicum.shareit.util.Variables.HEADER_USER_ID;
 
@@ -23,35 +30,61 @@ import static ru.practicum.shareit.util.Variables.HEADER_USER_ID;
 @Slf4j
 @Validated
 public class BookingController {
+    private static final int MAX_BATCH_SIZE = 500;
+
     private final BookingClient bookingClient;
 
     @GetMapping
-    public ResponseEntity<Object> getBookings(@RequestHeader(value = HEADER_USER_ID) long userId,
+    public Mono<ResponseEntity<Object>> getBookings(@RequestHeader(value = HEADER_USER_ID) long userId,
                                               @RequestParam(name = "state", defaultValue = "all") String stateParam,
                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                              @RequestParam(name = "cursor", required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new BadRequestException("Unknown state: " + stateParam));
+        if (cursor != null && !cursor.isBlank()) {
+            log.info("Get booking with state {}, userId={}, cursor={}, size={}", stateParam, userId, cursor, size);
+            return bookingClient.getBookings(userId, state, cursor, size);
+        }
         log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
         return bookingClient.getBookings(userId, state, from, size);
     }
 
     @PostMapping
-    public ResponseEntity<Object> bookItem(@RequestHeader(value = HEADER_USER_ID) long userId,
+    public Mono<ResponseEntity<Object>> bookItem(@RequestHeader(value = HEADER_USER_ID) long userId,
                                            @RequestBody @Valid BookItemRequestDto requestDto) {
         log.info("Creating booking {}, userId={}", requestDto, userId);
         return bookingClient.bookItem(userId, requestDto);
     }
 
+    //записи проверяет сервер и отвечает по каждой отдельно, здесь только размер пакета
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Object>> bookItems(@RequestHeader(value = HEADER_USER_ID) long userId,
+                                            @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                            List<@NotNull BookItemRequestDto> requestDtos) {
+        log.info("Creating {} bookings, userId={}", requestDtos.size(), userId);
+        return bookingClient.bookItems(userId, requestDtos);
+    }
+
+    //решения проверяет сервер и отвечает по каждому отдельно, как в /batch: решение без бронирования
+    //или без approved не отклоняет весь пакет. Здесь только размер пакета
+    @PatchMapping("/approve")
+    public Mono<ResponseEntity<Object>> approveBookings(@RequestHeader(value = HEADER_USER_ID) long userId,
+                                                  @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                                  List<@NotNull BookingDecisionDto> decisions) {
+        log.info("patch {} approvals userId={}", decisions.size(), userId);
+        return bookingClient.approveAll(userId, decisions);
+    }
+
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBooking(@RequestHeader(value = HEADER_USER_ID) long userId,
+    public Mono<ResponseEntity<Object>> getBooking(@RequestHeader(value = HEADER_USER_ID) long userId,
                                              @PathVariable Long bookingId) {
         log.info("Get booking {}, userId={}", bookingId, userId);
         return bookingClient.getBooking(userId, bookingId);
     }
 
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> updateBooking(@PathVariable Long bookingId,
+    public Mono<ResponseEntity<Object>> updateBooking(@PathVariable Long bookingId,
                                                 @RequestHeader(value = HEADER_USER_ID) Long userId,
                                                 @RequestParam @NotNull Boolean approved) {
         log.info("patch approved userId={} bookingId={}", userId, bookingId);
@@ -59,13 +92,29 @@ public class BookingController {
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getAllBookingsByOwner(@RequestParam(defaultValue = "ALL") String state,
+    public Mono<ResponseEntity<Object>> getAllBookingsByOwner(@RequestParam(defaultValue = "ALL") String state,
                                                         @RequestHeader(value = HEADER_USER_ID) Long userId,
                                                         @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                        @Positive @RequestParam(defaultValue = "10") Integer size) {
+                                                        @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                        @RequestParam(required = false) String cursor) {
         BookingState stateParam = BookingState.from(state)
                 .orElseThrow(() -> new BadRequestException("Unknown state: " + state));
+        if (cursor != null && !cursor.isBlank()) {
+            log.info("Get owner booking with state {}, userId={}, cursor={}, size={}", state, userId, cursor, size);
+            return bookingClient.getBookingsByOwner(userId, stateParam, cursor, size);
+        }
         log.info("Get booking with state {}, userId={}, from={}, size={}", state, userId, from, size);
         return bookingClient.getBookingsByOwner(userId, stateParam, from, size);
     }
+
+    //тело сервера не накапливается в шлюзе и уходит клиенту частями (chunked) по мере получения
+    @GetMapping("/owner/export")
+    public Mono<ResponseEntity<StreamingResponseBody>> exportBookingsByOwner(
+            @RequestHeader(value = HEADER_USER_ID) Long userId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        BookingExportFormat exportFormat = BookingExportFormat.from(format)
+                .orElseThrow(() -> new BadRequestException("Unknown format: " + format));
+        log.info("Export owner bookings, userId={}, format={}", userId, format);
+        return bookingClient.exportBookingsByOwner(userId, exportFormat);
+    }
 }
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+public enum BookingExportFormat {
+	// строка JSON на бронирование
+	NDJSON,
+	// заголовок и строка на бронирование
+	CSV;
+
+	public static Optional<BookingExportFormat> from(String stringFormat) {
+		return Arrays.stream(values())
+				.filter(i -> i.toString().equals(stringFormat.toUpperCase())).findAny();
+	}
+}
@@ -1,104 +1,173 @@
 package ru.practicum.shareit.client;
 
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import org.springframework.http.*;
 import org.springframework.lang.Nullable;
-import org.springframework.web.client.HttpStatusCodeException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.List.of;
 import static ru.practicum.shareit.util.Variables.HEADER_USER_ID;
 
 public class BaseClient {
-    protected final RestTemplate rest;
+    //заголовки соединения с сервером, шлюз отдает тело заново и выставляет их сам
+    private static final List<String> HOP_BY_HOP_HEADERS = of(HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION,
+            "Keep-Alive", HttpHeaders.CONTENT_LENGTH);
 
-    public BaseClient(RestTemplate rest) {
-        this.rest = rest;
+    protected final ServerTransport transport;
+    private final ResponseCache responseCache;
+    //области кэша, которые устаревают после успешной записи через этот клиент
+    private final Set<String> invalidatedRegions;
+    //одинаковые GET, пришедшие пока первый еще выполняется, получают его ответ без второго вызова сервера
+    private final Map<InFlightKey, Mono<ResponseEntity<Object>>> inFlight = new ConcurrentHashMap<>();
+
+    public BaseClient(ServerTransport transport, ResponseCache responseCache, String... invalidatedRegions) {
+        this.transport = transport;
+        this.responseCache = responseCache;
+        this.invalidatedRegions = Set.of(invalidatedRegions);
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> get(String path, @Nullable Map<String, Object> parameters) {
         return get(path, null, parameters);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected Mono<ResponseEntity<Object>> getCached(String region, String path, Long userId,
+                                                     @Nullable Map<String, Object> parameters) {
+        if (!responseCache.isEnabled()) {
+            return get(path, userId, parameters);
+        }
+        ResponseCache.Key key = responseCache.key(region, path, userId, parameters);
+        ResponseCache.CachedResponse cached = responseCache.get(key);
+        if (cached != null && responseCache.isFresh(cached)) {
+            responseCache.recordHit();
+            return Mono.just(cached.getResponse());
+        }
+        String etag = cached != null ? cached.getEtag() : null;
+        return exchangeGet(key, path, userId, parameters, etag)
+                .map(response -> {
+                    if (cached != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        responseCache.recordNotModified();
+                        responseCache.put(key, cached.getResponse());
+                        return cached.getResponse();
+                    }
+                    responseCache.recordMiss();
+                    ResponseEntity<Object> prepared = prepareGatewayResponse(response);
+                    if (prepared.getStatusCode().is2xxSuccessful()) {
+                        responseCache.put(key, prepared);
+                    }
+                    return prepared;
+                });
+    }
+
+    //без кэша и объединения одинаковых запросов: тело не хранится в шлюзе и отдается одному клиенту
+    protected Mono<ResponseEntity<StreamingResponseBody>> stream(String path, Long userId,
+                                                                 @Nullable Map<String, Object> parameters) {
+        return transport.stream(path, defaultHeaders(userId), parameters)
+                .map(response -> new ResponseEntity<>(response.getBody(), gatewayHeaders(response.getHeaders()),
+                        response.getStatusCode()));
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, @Nullable Map<String, Object> parameters) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, @Nullable Map<String, Object> parameters) {
         return patch(path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
-
-        ResponseEntity<Object> shareitServerResponse;
-        try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        if (method == HttpMethod.GET) {
+            return exchangeGet(null, path, userId, parameters, null)
+                    .map(BaseClient::prepareGatewayResponse);
         }
-        return prepareGatewayResponse(shareitServerResponse);
+        return transport.exchange(method, path, defaultHeaders(userId), parameters, body)
+                .map(BaseClient::prepareGatewayResponse)
+                .doOnNext(r -> {
+                    if (r.getStatusCode().is2xxSuccessful()) {
+                        responseCache.invalidate(invalidatedRegions);
+                    }
+                });
+    }
+
+    //ключ несет счетчик записей общего кэша ответов: GET после записи через любой клиент шлюза
+    //не присоединяется к вызову сервера, начатому до нее
+    private Mono<ResponseEntity<Object>> exchangeGet(@Nullable ResponseCache.Key cacheKey, String path, Long userId,
+                                                     @Nullable Map<String, Object> parameters, @Nullable String etag) {
+        return Mono.defer(() -> {
+            InFlightKey key = new InFlightKey(cacheKey, responseCache.writes(), path, userId, parameters, etag);
+            return inFlight.computeIfAbsent(key, k -> {
+                HttpHeaders headers = defaultHeaders(userId);
+                if (etag != null) {
+                    headers.setIfNoneMatch(etag);
+                }
+                //запись снимается после ответа сервера, следующий такой же GET пойдет на сервер заново
+                return transport.exchange(HttpMethod.GET, path, headers, parameters, null)
+                        .doFinally(signal -> inFlight.remove(k))
+                        .cache();
+            });
+        });
     }
 
     private HttpHeaders defaultHeaders(Long userId) {
@@ -112,16 +181,25 @@ public class BaseClient {
     }
 
     private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
-        }
-
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+        return new ResponseEntity<>(response.getBody(), gatewayHeaders(response.getHeaders()),
+                response.getStatusCode());
+    }
 
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
-        }
+    private static HttpHeaders gatewayHeaders(HttpHeaders serverHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(serverHeaders);
+        HOP_BY_HOP_HEADERS.forEach(headers::remove);
+        return headers;
+    }
 
-        return responseBuilder.build();
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class InFlightKey {
+        private final ResponseCache.Key cacheKey;
+        private final long writes;
+        private final String path;
+        private final Long userId;
+        private final Map<String, Object> parameters;
+        private final String etag;
     }
 }
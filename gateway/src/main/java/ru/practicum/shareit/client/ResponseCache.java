@@ -0,0 +1,136 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//кэш ответов сервера на чтение; запись через шлюз меняет поколение области,
+//старые ключи становятся недостижимыми и вытесняются по размеру или сроку
+@Component
+public class ResponseCache {
+    public static final String ITEMS_REGION = "items";
+    public static final String REQUESTS_REGION = "requests";
+
+    private final boolean enabled;
+    private final long freshForNanos;
+    private final Cache<Key, CachedResponse> cache;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    //успешные записи через любой клиент шлюза. Ответы без кэша не относятся к области: список бронирований
+    //несет и вещь, и пользователя, поэтому GET без кэша сверяется с общим счетчиком, а не с поколением области
+    private final AtomicLong writes = new AtomicLong();
+    private final Counter hits;
+    private final Counter notModified;
+    private final Counter misses;
+
+    public ResponseCache(@Value("${gateway-cache.enabled}") boolean enabled,
+                         @Value("${gateway-cache.maximum-size}") long maximumSize,
+                         @Value("${gateway-cache.fresh-for}") Duration freshFor,
+                         @Value("${gateway-cache.expire-after-write}") Duration expireAfterWrite,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.freshForNanos = freshFor.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway-responses");
+        hits = requestCounter(meterRegistry, "hit");
+        notModified = requestCounter(meterRegistry, "not-modified");
+        misses = requestCounter(meterRegistry, "miss");
+        //доля ответов, отданных без обращения к серверу
+        Gauge.builder("gateway.response.cache.hit.ratio", this, ResponseCache::hitRatio)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Key key(String region, String path, @Nullable Long userId, @Nullable Map<String, Object> parameters) {
+        return new Key(region, generation(region).get(), path, userId, parameters);
+    }
+
+    @Nullable
+    public CachedResponse get(Key key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(Key key, ResponseEntity<Object> response) {
+        cache.put(key, new CachedResponse(response, response.getHeaders().getETag(), System.nanoTime()));
+    }
+
+    public void invalidate(Collection<String> regions) {
+        writes.incrementAndGet();
+        regions.forEach(region -> generation(region).incrementAndGet());
+    }
+
+    public long writes() {
+        return writes.get();
+    }
+
+    public boolean isFresh(CachedResponse cached) {
+        return System.nanoTime() - cached.getStoredAt() < freshForNanos;
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordNotModified() {
+        notModified.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    private AtomicLong generation(String region) {
+        return generations.computeIfAbsent(region, r -> new AtomicLong());
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + notModified.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.response.cache.requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    public static final class Key {
+        private final String region;
+        private final long generation;
+        private final String path;
+        private final Long userId;
+        private final Map<String, Object> parameters;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class CachedResponse {
+        private final ResponseEntity<Object> response;
+        private final String etag;
+        private final long storedAt;
+    }
+}
@@ -0,0 +1,131 @@
+package ru.practicum.shareit.client;
+
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.apache.hc.core5.util.DeadlineTimeoutException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.exceptions.model.ServerOverloadException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+
+//блокирующий режим: запрос выполняется в потоке обработки входящего запроса
+public class RestTemplateTransport implements ServerTransport {
+    private final RestTemplate rest;
+    private final boolean passThrough;
+
+    public RestTemplateTransport(RestTemplate rest, boolean passThrough) {
+        this.rest = rest;
+        this.passThrough = passThrough;
+        if (passThrough) {
+            //статус ошибки передается клиенту как есть, без исключения и повторного чтения тела
+            rest.setErrorHandler(new PassThroughErrorHandler());
+        }
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                                 @Nullable Map<String, Object> parameters, @Nullable Object body) {
+        return Mono.fromCallable(() -> passThrough
+                ? relay(method, path, headers, parameters, body)
+                : send(method, path, headers, parameters, body))
+                .onErrorMap(RestTemplateTransport::isPoolRejection,
+                        e -> new ServerOverloadException("нет свободных соединений с сервером", e));
+    }
+
+    //соединение с сервером остается открытым, пока тело копируется в ответ
+    @Override
+    public Mono<ResponseEntity<StreamingResponseBody>> stream(String path, HttpHeaders headers,
+                                                              @Nullable Map<String, Object> parameters) {
+        return Mono.fromCallable(() -> {
+            URI uri = rest.getUriTemplateHandler().expand(path, parameters != null ? parameters : Map.of());
+            ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, HttpMethod.GET);
+            request.getHeaders().addAll(headers);
+            ClientHttpResponse response;
+            try {
+                response = request.execute();
+            } catch (IOException e) {
+                //как у RestTemplate: ожидание соединения из пула распознает isPoolRejection
+                throw new ResourceAccessException("I/O error on GET request for \"" + uri + "\": " + e.getMessage(), e);
+            }
+            StreamingResponseBody body = out -> {
+                try (response; InputStream in = response.getBody()) {
+                    in.transferTo(out);
+                }
+            };
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .body(body);
+        }).onErrorMap(RestTemplateTransport::isPoolRejection,
+                e -> new ServerOverloadException("нет свободных соединений с сервером", e));
+    }
+
+    private ResponseEntity<Object> relay(HttpMethod method, String path, HttpHeaders headers,
+                                         @Nullable Map<String, Object> parameters, @Nullable Object body) {
+        HttpEntity<Object> requestEntity = new HttpEntity<>(body, headers);
+        return rest.execute(path, method, rest.httpEntityCallback(requestEntity), RestTemplateTransport::readRaw,
+                parameters != null ? parameters : Map.of());
+    }
+
+    private ResponseEntity<Object> send(HttpMethod method, String path, HttpHeaders headers,
+                                        @Nullable Map<String, Object> parameters, @Nullable Object body) {
+        HttpEntity<Object> requestEntity = new HttpEntity<>(body, headers);
+        try {
+            if (parameters != null) {
+                return rest.exchange(path, method, requestEntity, Object.class, parameters);
+            }
+            return rest.exchange(path, method, requestEntity, Object.class);
+        } catch (HttpStatusCodeException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+        }
+    }
+
+    //при известной длине тело читается в массив точного размера, без промежуточного буфера
+    private static ResponseEntity<Object> readRaw(ClientHttpResponse response) throws IOException {
+        long contentLength = response.getHeaders().getContentLength();
+        byte[] body;
+        try (InputStream in = response.getBody()) {
+            body = contentLength >= 0 ? in.readNBytes((int) contentLength) : in.readAllBytes();
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .body(body.length > 0 ? body : null);
+    }
+
+    //ожидание соединения из пула заканчивается одним из двух исключений в зависимости от места таймаута
+    private static boolean isPoolRejection(Throwable e) {
+        if (!(e instanceof ResourceAccessException)) {
+            return false;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectionRequestTimeoutException || cause instanceof DeadlineTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class PassThroughErrorHandler implements ResponseErrorHandler {
+        @Override
+        public boolean hasError(ClientHttpResponse response) {
+            return false;
+        }
+
+        @Override
+        public void handleError(ClientHttpResponse response) {
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+//ответ сервера: в режиме pass-through тело в байтах как есть, иначе 2xx с разобранным телом, остальные статусы с телом в байтах
+public interface ServerTransport {
+    Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                          @Nullable Map<String, Object> parameters, @Nullable Object body);
+
+    //GET без чтения тела в память: статус и заголовки сервера сразу, тело передается клиенту по частям
+    Mono<ResponseEntity<StreamingResponseBody>> stream(String path, HttpHeaders headers,
+                                                       @Nullable Map<String, Object> parameters);
+}
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.client;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+
+//один пул соединений с сервером на все клиенты шлюза в обоих режимах
+@Component
+public class ServerTransportFactory implements DisposableBean {
+    public static final String MODE_REST_TEMPLATE = "rest-template";
+    public static final String MODE_WEB_CLIENT = "web-client";
+
+    private final String serverUrl;
+    private final boolean passThrough;
+    private final RestTemplateBuilder restTemplateBuilder;
+    private final WebClient.Builder webClientBuilder;
+    private final CloseableHttpClient httpClient;
+    private final ConnectionProvider connectionProvider;
+    private final ReactorClientHttpConnector connector;
+
+    public ServerTransportFactory(@Value("${shareit-server.url}") String serverUrl,
+                                  @Value("${shareit-server.client}") String mode,
+                                  @Value("${shareit-server.pass-through}") boolean passThrough,
+                                  @Value("${shareit-server.pool.max-connections}") int maxConnections,
+                                  @Value("${shareit-server.pool.pending-acquire-max-count}") int pendingAcquireMaxCount,
+                                  @Value("${shareit-server.pool.pending-acquire-timeout}") Duration pendingAcquireTimeout,
+                                  @Value("${shareit-server.pool.max-idle-time}") Duration maxIdleTime,
+                                  @Value("${shareit-server.response-timeout}") Duration responseTimeout,
+                                  RestTemplateBuilder restTemplateBuilder,
+                                  WebClient.Builder webClientBuilder) {
+        this.serverUrl = serverUrl;
+        this.passThrough = passThrough;
+        this.restTemplateBuilder = restTemplateBuilder;
+        this.webClientBuilder = webClientBuilder;
+        switch (mode) {
+            case MODE_REST_TEMPLATE:
+                //пул по умолчанию - 5 соединений на сервер, при виртуальных потоках он стал бы узким местом
+                httpClient = HttpClients.custom()
+                        .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                                .setMaxConnTotal(maxConnections)
+                                .setMaxConnPerRoute(maxConnections)
+                                .build())
+                        .setDefaultRequestConfig(RequestConfig.custom()
+                                .setConnectionRequestTimeout(Timeout.of(pendingAcquireTimeout))
+                                .setResponseTimeout(Timeout.of(responseTimeout))
+                                .build())
+                        .evictIdleConnections(TimeValue.of(maxIdleTime))
+                        .build();
+                connectionProvider = null;
+                connector = null;
+                break;
+            case MODE_WEB_CLIENT:
+                httpClient = null;
+                connectionProvider = ConnectionProvider.builder("shareit-server")
+                        .maxConnections(maxConnections)
+                        .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                        .pendingAcquireTimeout(pendingAcquireTimeout)
+                        .maxIdleTime(maxIdleTime)
+                        .build();
+                connector = new ReactorClientHttpConnector(HttpClient.create(connectionProvider)
+                        .responseTimeout(responseTimeout));
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("неизвестный режим shareit-server.client: %s, " +
+                        "допустимы %s и %s", mode, MODE_REST_TEMPLATE, MODE_WEB_CLIENT));
+        }
+    }
+
+    public ServerTransport create(String apiPrefix) {
+        DefaultUriBuilderFactory uriBuilderFactory = new DefaultUriBuilderFactory(serverUrl + apiPrefix);
+        if (connector != null) {
+            return new WebClientTransport(webClientBuilder.clone()
+                    .uriBuilderFactory(uriBuilderFactory)
+                    .clientConnector(connector)
+                    .build(), passThrough);
+        }
+        return new RestTemplateTransport(restTemplateBuilder
+                .uriTemplateHandler(uriBuilderFactory)
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build(), passThrough);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (httpClient != null) {
+            httpClient.close();
+        }
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.shareit.client;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.exceptions.model.ServerOverloadException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+//неблокирующий режим: ответ приходит в потоке Reactor Netty, поток Tomcat освобождается
+@RequiredArgsConstructor
+public class WebClientTransport implements ServerTransport {
+    //сколько частей тела читается от сервера вперед, пока поток ответа пишет предыдущие
+    private static final int STREAM_PREFETCH = 16;
+
+    private final WebClient webClient;
+    private final boolean passThrough;
+
+    @Override
+    public Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                                 @Nullable Map<String, Object> parameters, @Nullable Object body) {
+        WebClient.RequestBodySpec request = webClient.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(requestHeaders -> requestHeaders.addAll(headers));
+        WebClient.RequestHeadersSpec<?> spec = body != null ? request.bodyValue(body) : request;
+        return spec.exchangeToMono(this::toEntity)
+                .onErrorMap(WebClientTransport::isPoolRejection,
+                        e -> new ServerOverloadException("нет свободных соединений с сервером", e));
+    }
+
+    //ошибки сервера передаются как есть, тело в обоих случаях читается по мере записи в ответ
+    @Override
+    public Mono<ResponseEntity<StreamingResponseBody>> stream(String path, HttpHeaders headers,
+                                                              @Nullable Map<String, Object> parameters) {
+        return webClient.get()
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(requestHeaders -> requestHeaders.addAll(headers))
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .map(entity -> new ResponseEntity<>((StreamingResponseBody) out -> write(entity.getBody(), out),
+                        entity.getHeaders(), entity.getStatusCode()))
+                .onErrorMap(WebClientTransport::isPoolRejection,
+                        e -> new ServerOverloadException("нет свободных соединений с сервером", e));
+    }
+
+    //части тела пишутся в потоке ответа, а не в потоке Reactor Netty: блокирующая запись не держит event loop.
+    //закрытие Stream отменяет чтение от сервера, если клиент оборвал загрузку
+    private static void write(@Nullable Flux<DataBuffer> body, OutputStream out) throws IOException {
+        if (body == null) {
+            return;
+        }
+        try (Stream<DataBuffer> buffers = body.doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .toStream(STREAM_PREFETCH)) {
+            Iterator<DataBuffer> iterator = buffers.iterator();
+            while (iterator.hasNext()) {
+                try (InputStream in = iterator.next().asInputStream(true)) {
+                    in.transferTo(out);
+                }
+            }
+        }
+    }
+
+    private Mono<ResponseEntity<Object>> toEntity(ClientResponse response) {
+        if (passThrough) {
+            return response.toEntity(byte[].class)
+                    .map(entity -> new ResponseEntity<>(entity.getBody(), entity.getHeaders(), entity.getStatusCode()));
+        }
+        if (response.statusCode().is2xxSuccessful()) {
+            return response.toEntity(Object.class);
+        }
+        return response.toEntity(byte[].class)
+                .map(entity -> ResponseEntity.status(entity.getStatusCode()).body(entity.getBody()));
+    }
+
+    //очередь ожидания соединения из пула переполнена или ожидание истекло
+    private static boolean isPoolRejection(Throwable throwable) {
+        Throwable cause = throwable instanceof WebClientRequestException ? throwable.getCause() : throwable;
+        return cause instanceof TimeoutException
+                || cause != null && cause.getClass().getSimpleName().equals("PoolAcquirePendingLimitException");
+    }
+}
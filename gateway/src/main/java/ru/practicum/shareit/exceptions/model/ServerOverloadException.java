@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exceptions.model;
+
+public class ServerOverloadException extends RuntimeException {
+    public ServerOverloadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
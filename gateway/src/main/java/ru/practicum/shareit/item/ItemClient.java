@@ -1,46 +1,43 @@
 package ru.practicum.shareit.item;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerTransportFactory;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import java.util.Map;
 
+import static ru.practicum.shareit.client.ResponseCache.ITEMS_REGION;
+import static ru.practicum.shareit.client.ResponseCache.REQUESTS_REGION;
+
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public ItemClient(ServerTransportFactory transportFactory, ResponseCache responseCache) {
+        super(transportFactory.create(API_PREFIX), responseCache, ITEMS_REGION, REQUESTS_REGION);
     }
 
 
-    public ResponseEntity<Object> postItem(ItemDto itemDto, Long userId) {
+    public Mono<ResponseEntity<Object>> postItem(ItemDto itemDto, Long userId) {
         return post("", userId, itemDto);
     }
 
-    public ResponseEntity<Object> patchItem(ItemDto itemDto, long itemId, Long userId) {
+    public Mono<ResponseEntity<Object>> patchItem(ItemDto itemDto, long itemId, Long userId) {
         return patch("/" + itemId, userId, itemDto);
     }
 
-    public ResponseEntity<Object> getItemById(Long itemId, Long userId) {
-        return get("/" + itemId, userId);
+    public Mono<ResponseEntity<Object>> getItemById(Long itemId, Long userId) {
+        return getCached(ITEMS_REGION, "/" + itemId, userId, null);
     }
 
-    public ResponseEntity<Object> getAllUsersItems(Long userId, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getAllUsersItems(Long userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -48,16 +45,16 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> searchAvailableItems(String text, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> searchAvailableItems(String text, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
                 "size", size
         );
-        return get("/search?text={text}&from={from}&size={size}", parameters);
+        return getCached(ITEMS_REGION, "/search?text={text}&from={from}&size={size}", null, parameters);
     }
 
-    public ResponseEntity<Object> addComment(Long itemId, Long userId, CommentDto commentDto) {
+    public Mono<ResponseEntity<Object>> addComment(Long itemId, Long userId, CommentDto commentDto) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
 }
@@ -6,12 +6,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
-import javax.validation.Valid;
-import javax.validation.constraints.Positive;
-import javax.validation.constraints.PositiveOrZero;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 
 import static ru.practicum.shareit.util.Variables.HEADER_USER_ID;
 
@@ -24,14 +25,14 @@ public class ItemController {
     private final ItemClient itemClient;
 
     @PostMapping
-    public ResponseEntity<Object> addItem(@Valid @RequestBody ItemDto itemDto,
+    public Mono<ResponseEntity<Object>> addItem(@Valid @RequestBody ItemDto itemDto,
                                           @RequestHeader(value = HEADER_USER_ID) Long userId) {
         log.info("post item userId={}, itemDto={}", userId, itemDto);
         return itemClient.postItem(itemDto, userId);
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(@RequestBody ItemDto itemDto,
+    public Mono<ResponseEntity<Object>> updateItem(@RequestBody ItemDto itemDto,
                                              @RequestHeader(value = HEADER_USER_ID) Long userId,
                                              @PathVariable long itemId) {
         log.info("patch item userId={}, itemId= {}, itemDto={}", userId, itemId, itemDto);
@@ -39,14 +40,14 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItemById(@PathVariable Long itemId,
+    public Mono<ResponseEntity<Object>> getItemById(@PathVariable Long itemId,
                                               @RequestHeader(value = HEADER_USER_ID) Long userId) {
         log.info("Get itemId={}, userId={}", itemId, userId);
         return itemClient.getItemById(itemId, userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllUsersItems(@RequestHeader(value = HEADER_USER_ID) Long userId,
+    public Mono<ResponseEntity<Object>> getAllUsersItems(@RequestHeader(value = HEADER_USER_ID) Long userId,
                                                    @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
                                                    @Positive @RequestParam(defaultValue = "10") Integer size) {
         log.info("Get allUserItem userId={}, from={}, size={}", userId, from, size);
@@ -54,7 +55,7 @@ public class ItemController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> searchItems(@RequestParam String text,
+    public Mono<ResponseEntity<Object>> searchItems(@RequestParam String text,
                                               @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
                                               @Positive @RequestParam(defaultValue = "10") Integer size) {
         log.info("Get /search text={}, from={}, size={}", text, from, size);
@@ -62,7 +63,7 @@ public class ItemController {
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> addComment(@PathVariable Long itemId,
+    public Mono<ResponseEntity<Object>> addComment(@PathVariable Long itemId,
                                              @RequestHeader(value = HEADER_USER_ID) Long userId,
                                              @Valid @RequestBody CommentDto commentDto) {
         log.info("Post comment userId={}, itemId={}, commentDto={}", userId, itemId, commentDto);
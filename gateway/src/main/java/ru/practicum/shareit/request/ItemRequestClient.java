@@ -1,48 +1,44 @@
 package ru.practicum.shareit.request;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerTransportFactory;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.Map;
 
+import static ru.practicum.shareit.client.ResponseCache.REQUESTS_REGION;
+
 @Service
 public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public ItemRequestClient(ServerTransportFactory transportFactory, ResponseCache responseCache) {
+        super(transportFactory.create(API_PREFIX), responseCache, REQUESTS_REGION);
     }
 
-    public ResponseEntity<Object> addRequest(Long userId, ItemRequestDto itemRequestDto) {
+    public Mono<ResponseEntity<Object>> addRequest(Long userId, ItemRequestDto itemRequestDto) {
         return post("", userId, itemRequestDto);
     }
 
-    public ResponseEntity<Object> getById(Long userId, Long requestId) {
-        return get("/" + requestId, userId);
+    public Mono<ResponseEntity<Object>> getById(Long userId, Long requestId) {
+        return getCached(REQUESTS_REGION, "/" + requestId, userId, null);
     }
 
-    public ResponseEntity<Object> getAllUserRequest(Long userId) {
-        return get("", userId);
+    public Mono<ResponseEntity<Object>> getAllUserRequest(Long userId) {
+        return getCached(REQUESTS_REGION, "", userId, null);
     }
 
-    public ResponseEntity<Object> getAllRequest(Long userId, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getAllRequest(Long userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
-        return get("/all", userId, parameters);
+        return getCached(REQUESTS_REGION, "/all?from={from}&size={size}", userId, parameters);
     }
 }
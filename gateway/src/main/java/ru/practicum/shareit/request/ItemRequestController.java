@@ -6,11 +6,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
-import javax.validation.Valid;
-import javax.validation.constraints.Positive;
-import javax.validation.constraints.PositiveOrZero;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 
 import static ru.practicum.shareit.util.Variables.HEADER_USER_ID;
 
@@ -23,28 +24,28 @@ public class ItemRequestController {
     private final ItemRequestClient itemRequestClient;
 
     @PostMapping
-    public ResponseEntity<Object> addRequest(@RequestHeader(value = HEADER_USER_ID) Long userId,
+    public Mono<ResponseEntity<Object>> addRequest(@RequestHeader(value = HEADER_USER_ID) Long userId,
                                              @Valid @RequestBody ItemRequestDto itemRequestDto) {
         log.info("Post userId={}, itemRequestDto={}", userId, itemRequestDto);
         return itemRequestClient.addRequest(userId, itemRequestDto);
     }
 
     @GetMapping("{requestId}")
-    public ResponseEntity<Object> getRequestById(@RequestHeader(value = HEADER_USER_ID) Long userId,
+    public Mono<ResponseEntity<Object>> getRequestById(@RequestHeader(value = HEADER_USER_ID) Long userId,
                                                  @PathVariable Long requestId) {
         log.info("Get /requestId userdId={}, requestId={}", userId, requestId);
         return itemRequestClient.getById(userId, requestId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllUserRequest(
+    public Mono<ResponseEntity<Object>> getAllUserRequest(
             @RequestHeader(value = HEADER_USER_ID) Long userId) {
         log.info("Get allUserRequest userId={}", userId);
         return itemRequestClient.getAllUserRequest(userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllRequests(
+    public Mono<ResponseEntity<Object>> getAllRequests(
             @RequestHeader(value = HEADER_USER_ID) Long userId,
             @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
             @Positive @RequestParam(defaultValue = "10") Integer size) {
@@ -1,46 +1,43 @@
 package ru.practicum.shareit.user;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerTransportFactory;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import static ru.practicum.shareit.client.ResponseCache.ITEMS_REGION;
+import static ru.practicum.shareit.client.ResponseCache.REQUESTS_REGION;
+
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public UserClient(ServerTransportFactory transportFactory, ResponseCache responseCache) {
+        super(transportFactory.create(API_PREFIX), responseCache, ITEMS_REGION, REQUESTS_REGION);
     }
 
-    public ResponseEntity<Object> postUser(UserDto userDto) {
+    public Mono<ResponseEntity<Object>> postUser(UserDto userDto) {
         return post("", userDto);
     }
 
-    public ResponseEntity<Object> getUser(long userId) {
+    public Mono<ResponseEntity<Object>> getUser(long userId) {
         return get("/" + userId);
     }
 
-    public ResponseEntity<Object> getAllUsers() {
+    public Mono<ResponseEntity<Object>> getAllUsers() {
         return get("");
     }
 
-    public ResponseEntity<Object> deleteUser(long userId) {
+    public Mono<ResponseEntity<Object>> deleteUser(long userId) {
         return delete("/" + userId);
     }
 
-    public ResponseEntity<Object> patchUser(UserDto userDto, long userId) {
+    public Mono<ResponseEntity<Object>> patchUser(UserDto userDto, long userId) {
         return patch("/" + userId, userDto);
     }
 }
@@ -6,9 +6,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.user.dto.UserDto;
 
-import javax.validation.Valid;
+import jakarta.validation.Valid;
 
 @Controller
 @RequestMapping(path = "/users")
@@ -19,31 +20,31 @@ public class UserController {
     private final UserClient userClient;
 
     @PostMapping
-    public ResponseEntity<Object> addUser(@RequestBody @Valid UserDto userDto) {
+    public Mono<ResponseEntity<Object>> addUser(@RequestBody @Valid UserDto userDto) {
         log.info("Creating user {}", userDto);
         return userClient.postUser(userDto);
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<Object> getUser(@PathVariable Long userId) {
+    public Mono<ResponseEntity<Object>> getUser(@PathVariable Long userId) {
         log.info("Get user userId={}", userId);
         return userClient.getUser(userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllUsers() {
+    public Mono<ResponseEntity<Object>> getAllUsers() {
         log.info("Get all users");
         return userClient.getAllUsers();
     }
 
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Object> deleteUser(@PathVariable long userId) {
+    public Mono<ResponseEntity<Object>> deleteUser(@PathVariable long userId) {
         log.info("Delete user userId={}", userId);
         return userClient.deleteUser(userId);
     }
 
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> updateUser(@RequestBody UserDto userDto, @PathVariable long userId) {
+    public Mono<ResponseEntity<Object>> updateUser(@RequestBody UserDto userDto, @PathVariable long userId) {
         log.info("Patch /userId userId={}, userDto={}", userId, userDto);
         return userClient.patchUser(userDto, userId);
     }
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//GET, пришедший после записи, не получает ответ вызова сервера, начатого до нее
+class BaseClientTest {
+    private final StubTransport transport = new StubTransport();
+    private final ResponseCache responseCache = new ResponseCache(true, 100, Duration.ofMinutes(1),
+            Duration.ofMinutes(10), new SimpleMeterRegistry());
+    private final TestClient client = new TestClient(transport, responseCache);
+
+    @Test
+    void cachedGetAfterWriteDoesNotJoinEarlierCall() {
+        CompletableFuture<ResponseEntity<Object>> before = client.getItem().toFuture();
+        CompletableFuture<ResponseEntity<Object>> joined = client.getItem().toFuture();
+        assertThat(transport.gets).hasSize(1);
+
+        client.patchItem().block();
+        CompletableFuture<ResponseEntity<Object>> after = client.getItem().toFuture();
+        assertThat(transport.gets).hasSize(2);
+
+        //ответ до записи приходит последним и не должен попасть в кэш вместо нового
+        transport.gets.get(1).tryEmitValue(ResponseEntity.ok("после записи"));
+        transport.gets.get(0).tryEmitValue(ResponseEntity.ok("до записи"));
+        assertThat(before.join().getBody()).isEqualTo("до записи");
+        assertThat(joined.join().getBody()).isEqualTo("до записи");
+        assertThat(after.join().getBody()).isEqualTo("после записи");
+        assertThat(client.getItem().block().getBody()).isEqualTo("после записи");
+        assertThat(transport.gets).hasSize(2);
+    }
+
+    @Test
+    void uncachedGetAfterWriteDoesNotJoinEarlierCall() {
+        CompletableFuture<ResponseEntity<Object>> before = client.getBooking().toFuture();
+        CompletableFuture<ResponseEntity<Object>> joined = client.getBooking().toFuture();
+        assertThat(transport.gets).hasSize(1);
+
+        client.patchItem().block();
+        CompletableFuture<ResponseEntity<Object>> after = client.getBooking().toFuture();
+        assertThat(transport.gets).hasSize(2);
+
+        transport.gets.get(0).tryEmitValue(ResponseEntity.ok("до записи"));
+        transport.gets.get(1).tryEmitValue(ResponseEntity.ok("после записи"));
+        assertThat(before.join().getBody()).isEqualTo("до записи");
+        assertThat(joined.join().getBody()).isEqualTo("до записи");
+        assertThat(after.join().getBody()).isEqualTo("после записи");
+    }
+
+    //запись через другой клиент с тем же кэшем ответов: бронирование меняет последнее/следующее в списке вещей
+    @Test
+    void uncachedGetAfterWriteThroughAnotherClientDoesNotJoinEarlierCall() {
+        TestClient otherClient = new TestClient(new StubTransport(), responseCache);
+        CompletableFuture<ResponseEntity<Object>> before = client.getBooking().toFuture();
+        assertThat(transport.gets).hasSize(1);
+
+        otherClient.patchItem().block();
+        CompletableFuture<ResponseEntity<Object>> after = client.getBooking().toFuture();
+        assertThat(transport.gets).hasSize(2);
+
+        transport.gets.get(0).tryEmitValue(ResponseEntity.ok("до записи"));
+        transport.gets.get(1).tryEmitValue(ResponseEntity.ok("после записи"));
+        assertThat(before.join().getBody()).isEqualTo("до записи");
+        assertThat(after.join().getBody()).isEqualTo("после записи");
+    }
+
+    private static class TestClient extends BaseClient {
+        TestClient(ServerTransport transport, ResponseCache responseCache) {
+            super(transport, responseCache, ResponseCache.ITEMS_REGION);
+        }
+
+        Mono<ResponseEntity<Object>> getItem() {
+            return getCached(ResponseCache.ITEMS_REGION, "/items/1", 1L, null);
+        }
+
+        Mono<ResponseEntity<Object>> getBooking() {
+            return get("/bookings/1", 1L);
+        }
+
+        Mono<ResponseEntity<Object>> patchItem() {
+            return patch("/items/1", 1L, "{\"name\": \"new\"}");
+        }
+    }
+
+    //GET ждет, пока тест не выдаст ответ; запись отвечает 200 сразу
+    private static class StubTransport implements ServerTransport {
+        private final List<Sinks.One<ResponseEntity<Object>>> gets = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                                     Map<String, Object> parameters, Object body) {
+            if (method != HttpMethod.GET) {
+                return Mono.just(ResponseEntity.ok().build());
+            }
+            Sinks.One<ResponseEntity<Object>> response = Sinks.one();
+            gets.add(response);
+            return response.asMono();
+        }
+
+        @Override
+        public Mono<ResponseEntity<StreamingResponseBody>> stream(String path, HttpHeaders headers,
+                                                                  Map<String, Object> parameters) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
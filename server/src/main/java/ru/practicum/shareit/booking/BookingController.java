@@ -1,13 +1,24 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
+import ru.practicum.shareit.booking.service.BookingExportService;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exceptions.model.BadRequestException;
 
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
+import static ru.practicum.shareit.util.Variables.HEADER_NEXT_CURSOR;
 import static ru.practicum.shareit.util.Variables.HEADER_USER_ID;
 
 @RestController
@@ -15,6 +26,7 @@ import static ru.practicum.shareit.util.Variables.HEADER_USER_ID;
 @RequiredArgsConstructor
 public class BookingController {
     private final BookingService bookingService;
+    private final BookingExportService bookingExportService;
 
     @PatchMapping("/{bookingId}")
     public BookingDto updateBooking(@PathVariable Long bookingId,
@@ -23,12 +35,24 @@ public class BookingController {
         return bookingService.approve(bookingId, userId, approved);
     }
 
+    @PatchMapping("/approve")
+    public List<BookingBatchResultDto> approveBookings(@RequestBody List<BookingDecisionDto> decisions,
+                                                       @RequestHeader(value = HEADER_USER_ID) Long userId) {
+        return bookingService.approveAll(decisions, userId);
+    }
+
     @PostMapping
     public BookingDto addBooking(@RequestBody BookingDtoShort bookingDtoShort,
                                  @RequestHeader(value = HEADER_USER_ID) Long userId) {
         return bookingService.addBooking(bookingDtoShort, userId);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> addBookings(@RequestBody List<BookingDtoShort> bookingDtos,
+                                                   @RequestHeader(value = HEADER_USER_ID) Long userId) {
+        return bookingService.addBookings(bookingDtos, userId);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingDto getBooking(@PathVariable Long bookingId,
                                  @RequestHeader(value = HEADER_USER_ID) Long userId) {
@@ -36,18 +60,45 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDto> getAllBookingsByUser(@RequestParam(defaultValue = "ALL") String state,
-                                                 @RequestHeader(value = HEADER_USER_ID) Long userId,
-                                                 @RequestParam(defaultValue = "0") Integer from,
-                                                 @RequestParam(defaultValue = "10") Integer size) {
-        return bookingService.getAllBookingsByUser(state, userId, from, size);
+    public ResponseEntity<List<BookingDto>> getAllBookingsByUser(@RequestParam(defaultValue = "ALL") String state,
+                                                                 @RequestHeader(value = HEADER_USER_ID) Long userId,
+                                                                 @RequestParam(defaultValue = "0") Integer from,
+                                                                 @RequestParam(defaultValue = "10") Integer size,
+                                                                 @RequestParam(required = false) String cursor) {
+        List<BookingDto> bookings = cursor == null || cursor.isBlank()
+                ? bookingService.getAllBookingsByUser(state, userId, from, size)
+                : bookingService.getAllBookingsByUser(state, userId, BookingCursor.decode(cursor), size);
+        return withNextCursor(bookings, size);
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getAllBookingsByOwner(@RequestParam(defaultValue = "ALL") String state,
-                                                  @RequestHeader(value = HEADER_USER_ID) Long userId,
-                                                  @RequestParam(defaultValue = "0") Integer from,
-                                                  @RequestParam(defaultValue = "10") Integer size) {
-        return bookingService.gettAllBookingsByOwner(state, userId, from, size);
+    public ResponseEntity<List<BookingDto>> getAllBookingsByOwner(@RequestParam(defaultValue = "ALL") String state,
+                                                                  @RequestHeader(value = HEADER_USER_ID) Long userId,
+                                                                  @RequestParam(defaultValue = "0") Integer from,
+                                                                  @RequestParam(defaultValue = "10") Integer size,
+                                                                  @RequestParam(required = false) String cursor) {
+        List<BookingDto> bookings = cursor == null || cursor.isBlank()
+                ? bookingService.gettAllBookingsByOwner(state, userId, from, size)
+                : bookingService.gettAllBookingsByOwner(state, userId, BookingCursor.decode(cursor), size);
+        return withNextCursor(bookings, size);
+    }
+
+    //вся история без страниц, пишется прямо в ответ: format=ndjson (по умолчанию) или csv
+    @GetMapping("/owner/export")
+    public void exportBookingsByOwner(@RequestHeader(value = HEADER_USER_ID) Long userId,
+                                      @RequestParam(defaultValue = "ndjson") String format,
+                                      HttpServletResponse response) throws IOException {
+        BookingExportFormat exportFormat = BookingExportFormat.from(format)
+                .orElseThrow(() -> new BadRequestException(String.format("Unknown format: %s", format)));
+        bookingExportService.exportOwnerBookings(userId, exportFormat, new ServletServerHttpResponse(response));
+    }
+
+    private ResponseEntity<List<BookingDto>> withNextCursor(List<BookingDto> bookings, int size) {
+        if (bookings.isEmpty() || bookings.size() < size) {
+            return ResponseEntity.ok(bookings);
+        }
+        return ResponseEntity.ok()
+                .header(HEADER_NEXT_CURSOR, BookingCursor.of(bookings.get(bookings.size() - 1)).encode())
+                .body(bookings);
     }
 }
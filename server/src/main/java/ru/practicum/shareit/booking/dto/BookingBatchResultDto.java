@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//результат по одной записи пакета: созданное или измененное бронирование либо причина отказа
+@Getter
+@AllArgsConstructor
+public class BookingBatchResultDto {
+    private int index;
+    private BookingDto booking;
+    private String error;
+}
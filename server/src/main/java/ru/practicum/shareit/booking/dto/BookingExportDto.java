@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+//строка выгрузки истории: собирается в запросе, без сущностей вещи и пользователя
+@Getter
+@AllArgsConstructor
+public class BookingExportDto {
+    private Long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private BookingStatus status;
+    private Long itemId;
+    private String itemName;
+    private Long bookerId;
+    private String bookerName;
+}
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+@Getter
+public enum BookingExportFormat {
+    // строка JSON на бронирование
+    NDJSON(new MediaType("application", "x-ndjson", StandardCharsets.UTF_8), "ndjson"),
+    // заголовок и строка на бронирование
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+    private final MediaType contentType;
+    private final String extension;
+
+    BookingExportFormat(MediaType contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public static Optional<BookingExportFormat> from(String format) {
+        return Arrays.stream(values())
+                .filter(value -> value.name().equalsIgnoreCase(format))
+                .findAny();
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.exception;
+
+import ru.practicum.shareit.exceptions.model.ConflictException;
+
+public class BookingConflictException extends ConflictException {
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
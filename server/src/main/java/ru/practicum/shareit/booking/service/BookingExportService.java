@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.http.HttpOutputMessage;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
+
+import java.io.IOException;
+
+public interface BookingExportService {
+    void exportOwnerBookings(Long ownerId, BookingExportFormat format, HttpOutputMessage output) throws IOException;
+}
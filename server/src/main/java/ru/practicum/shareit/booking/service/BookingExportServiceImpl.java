@@ -0,0 +1,105 @@
+package ru.practicum.shareit.booking.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class BookingExportServiceImpl implements BookingExportService {
+    private static final String CSV_HEADER = "id,start,end,status,item_id,item_name,booker_id,booker_name";
+
+    private final BookingRepository bookingRepository;
+    private final UserService userService;
+    //без сброса после каждой строки: в ответ уходят полные буферы, а не куски по строке
+    private final ObjectWriter jsonWriter;
+
+    public BookingExportServiceImpl(BookingRepository bookingRepository, UserService userService,
+                                    ObjectMapper objectMapper) {
+        this.bookingRepository = bookingRepository;
+        this.userService = userService;
+        this.jsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    //строки читаются курсором и сразу пишутся в ответ, память не зависит от длины истории.
+    //заголовки уходят вместе с первой записью тела, до нее ошибки возвращаются обычным ответом
+    @Transactional(readOnly = true)
+    @Override
+    public void exportOwnerBookings(Long ownerId, BookingExportFormat format, HttpOutputMessage output)
+            throws IOException {
+        userService.getUserById(ownerId);
+        output.getHeaders().setContentType(format.getContentType());
+        output.getHeaders().setContentDisposition(ContentDisposition.attachment()
+                .filename("bookings." + format.getExtension())
+                .build());
+        try (Stream<BookingExportDto> bookings = bookingRepository.streamAllBookingsOwner(ownerId)) {
+            switch (format) {
+                case NDJSON:
+                    writeNdjson(bookings.iterator(), output.getBody());
+                    break;
+                case CSV:
+                    writeCsv(bookings.iterator(), output.getBody());
+                    break;
+            }
+        }
+    }
+
+    private void writeNdjson(Iterator<BookingExportDto> bookings, OutputStream out) throws IOException {
+        JsonGenerator generator = jsonWriter.createGenerator(out);
+        generator.setRootValueSeparator(null);
+        while (bookings.hasNext()) {
+            jsonWriter.writeValue(generator, bookings.next());
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private void writeCsv(Iterator<BookingExportDto> bookings, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        while (bookings.hasNext()) {
+            BookingExportDto booking = bookings.next();
+            writer.write(String.join(",", String.valueOf(booking.getId()), toCsv(booking.getStart()),
+                    toCsv(booking.getEnd()), booking.getStatus().name(), String.valueOf(booking.getItemId()),
+                    toCsv(booking.getItemName()), String.valueOf(booking.getBookerId()),
+                    toCsv(booking.getBookerName())));
+            writer.write("\r\n");
+        }
+        writer.flush();
+    }
+
+    private static String toCsv(LocalDateTime dateTime) {
+        return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime);
+    }
+
+    //значения с запятой, кавычкой или переводом строки берутся в кавычки, кавычки удваиваются
+    private static String toCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -1,6 +1,9 @@
 package ru.practicum.shareit.booking.service;
 
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoShort;
 
@@ -10,11 +13,19 @@ import java.util.List;
 public interface BookingService {
     BookingDto addBooking(BookingDtoShort bookingDtoShort, long userId);
 
+    List<BookingBatchResultDto> addBookings(List<BookingDtoShort> bookingDtos, long userId);
+
     BookingDto approve(long bookingId, long userId, Boolean approve);
 
+    List<BookingBatchResultDto> approveAll(List<BookingDecisionDto> decisions, long ownerId);
+
     BookingDto getBookingById(Long bookingId, Long userId);
 
     List<BookingDto> getAllBookingsByUser(String state, Long userId, int from, int size);
 
     List<BookingDto> gettAllBookingsByOwner(String state, Long ownerId, int from, int size);
+
+    List<BookingDto> getAllBookingsByUser(String state, Long userId, BookingCursor cursor, int size);
+
+    List<BookingDto> gettAllBookingsByOwner(String state, Long ownerId, BookingCursor cursor, int size);
 }
@@ -7,8 +7,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.exception.BookingConflictException;
 import ru.practicum.shareit.booking.exception.BookingUnavailableException;
 import ru.practicum.shareit.booking.exception.DoubleApproveException;
 import ru.practicum.shareit.booking.exception.TimeDataException;
@@ -18,53 +22,110 @@ import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.exceptions.model.BadRequestException;
 import ru.practicum.shareit.exceptions.model.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.util.BookingMapper;
-import ru.practicum.shareit.util.ItemMapper;
+import ru.practicum.shareit.util.OffsetPageRequest;
 import ru.practicum.shareit.util.UserMapper;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
 @Slf4j
 public class BookingServiceImpl implements BookingService {
+    private static final int MAX_BATCH_SIZE = 500;
+
     private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
     private final UserService userService;
-    private final ItemService itemService;
+    private final BookingSummaryService bookingSummaryService;
 
     @Transactional
     @Override
     public BookingDto addBooking(BookingDtoShort bookingDtoShort, long bookerId) {
-        if (bookingDtoShort.getEnd().isBefore(bookingDtoShort.getStart()) ||
-                bookingDtoShort.getEnd().equals(bookingDtoShort.getStart())) {
-            throw new TimeDataException("недопустимое время бронирования");
+        checkTime(bookingDtoShort);
+        User booker = UserMapper.toUser(userService.getUserById(bookerId));
+        Item item = itemRepository.findById(bookingDtoShort.getItemId())
+                .orElseThrow(() -> new NotFoundException(String.format("item по id %d не найден",
+                        bookingDtoShort.getItemId())));
+        Booking booking = newBooking(bookingDtoShort, item, booker);
+        checkNoApprovedOverlap(null, item.getId(), booking.getStart(), booking.getEnd(), bookingRepository
+                .findAllOverlapping(List.of(item.getId()), BookingStatus.APPROVED, booking.getStart(), booking.getEnd()));
+        Booking savedBooking = bookingRepository.save(booking);
+        bookingSummaryService.addBooking(savedBooking);
+        return BookingMapper.toBookingDto(savedBooking);
+    }
+
+    //ошибка в записи не отменяет остальные: пользователь и вещи читаются один раз на пакет,
+    //вставки уходят пакетами JDBC при коммите
+    @Transactional
+    @Override
+    public List<BookingBatchResultDto> addBookings(List<BookingDtoShort> bookingDtos, long bookerId) {
+        if (bookingDtos.isEmpty() || bookingDtos.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException(String.format("в пакете должно быть от 1 до %d бронирований", MAX_BATCH_SIZE));
         }
         User booker = UserMapper.toUser(userService.getUserById(bookerId));
-        Item item = ItemMapper.toItem(itemService.getItemById(bookingDtoShort.getItemId(), bookerId));
-        if (itemService.getOwnerId(item.getId()) == bookerId) {
-            throw new NotFoundException("владелец не может сам у себя арендовать )))");
+        Map<Long, Item> items = itemRepository.findAllById(bookingDtos.stream()
+                        .map(BookingDtoShort::getItemId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        Map<Long, List<Booking>> approvedBookings = findApprovedInRange(items.keySet(),
+                bookingDtos.stream().map(BookingDtoShort::getStart), bookingDtos.stream().map(BookingDtoShort::getEnd));
+        LocalDateTime now = LocalDateTime.now();
+        Booking[] bookings = new Booking[bookingDtos.size()];
+        String[] errors = new String[bookingDtos.size()];
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingDtoShort bookingDto = bookingDtos.get(i);
+            try {
+                if (bookingDto.getItemId() == null || bookingDto.getStart() == null || bookingDto.getEnd() == null) {
+                    throw new BadRequestException("не указаны вещь или время бронирования");
+                }
+                if (!bookingDto.getStart().isAfter(now)) {
+                    throw new TimeDataException("начало бронирования должно быть в будущем");
+                }
+                checkTime(bookingDto);
+                Item item = items.get(bookingDto.getItemId());
+                if (item == null) {
+                    throw new NotFoundException(String.format("item по id %d не найден", bookingDto.getItemId()));
+                }
+                Booking booking = newBooking(bookingDto, item, booker);
+                checkNoApprovedOverlap(null, item.getId(), booking.getStart(), booking.getEnd(),
+                        approvedBookings.getOrDefault(item.getId(), List.of()));
+                bookings[i] = booking;
+            } catch (BadRequestException | NotFoundException | BookingConflictException e) {
+                errors[i] = e.getMessage();
+            }
         }
-        item.setOwnerId(itemService.getOwnerId(item.getId()));
-        if (item.getAvailable()) {
-            Booking booking = Booking.builder()
-                    .start(bookingDtoShort.getStart())
-                    .end(bookingDtoShort.getEnd())
-                    .item(item)
-                    .booker(booker)
-                    .status(BookingStatus.WAITING)
-                    .build();
-            return BookingMapper.toBookingDto(bookingRepository.save(booking));
-        } else {
-            throw new BookingUnavailableException(String.format("%s с id = %d не доступна для бронирования",
-                    item.getName(), item.getId()));
+        List<Booking> savedBookings = bookingRepository.saveAll(Arrays.stream(bookings)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+        if (!savedBookings.isEmpty()) {
+            bookingSummaryService.addBookings(savedBookings);
         }
+        List<BookingBatchResultDto> results = new ArrayList<>(bookingDtos.size());
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            results.add(new BookingBatchResultDto(i,
+                    bookings[i] != null ? BookingMapper.toBookingDto(bookings[i]) : null, errors[i]));
+        }
+        return results;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public BookingDto getBookingById(Long bookingId, Long userId) {
         Booking booking = bookingRepository.findById(bookingId)
@@ -78,12 +139,12 @@ public class BookingServiceImpl implements BookingService {
     }
 
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public List<BookingDto> getAllBookingsByUser(String state, Long userId, int from, int size) {
         userService.getUserById(userId);
-        Sort sortByCreated = Sort.by(Sort.Direction.DESC, "start");
-        Pageable page = PageRequest.of(from / size, size, sortByCreated);
+        Sort sortByCreated = Sort.by(Sort.Direction.DESC, "start", "id");
+        Pageable page = OffsetPageRequest.of(from, size, sortByCreated);
         LocalDateTime now = LocalDateTime.now();
         switch (state) {
             case "ALL":
@@ -93,7 +154,7 @@ public class BookingServiceImpl implements BookingService {
                         .findAllByBooker_IdAndEndIsAfterAndStartIsBefore(userId, now, now, page));
             case "PAST":
                 return BookingMapper.listToBookingDto(bookingRepository
-                        .findAllByBooker_IdAndEndIsBefore(userId, now, page));
+                        .findAllByBooker_IdAndEndIsBeforeAndStartIsBefore(userId, now, now, page));
             case "FUTURE":
                 return BookingMapper.listToBookingDto(bookingRepository
                         .findAllByBooker_IdAndStartIsAfter(userId, now, page));
@@ -109,11 +170,11 @@ public class BookingServiceImpl implements BookingService {
         throw new BadRequestException(String.format("Unknown state: %s", state));
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public List<BookingDto> gettAllBookingsByOwner(String state, Long ownerId, int from, int size) {
         userService.getUserById(ownerId);
-        Pageable page = PageRequest.of(from / size, size);
+        Pageable page = OffsetPageRequest.of(from, size);
         LocalDateTime now = LocalDateTime.now();
         switch (state) {
             case "ALL":
@@ -134,30 +195,259 @@ public class BookingServiceImpl implements BookingService {
         throw new BadRequestException(String.format("Unknown state: %s", state));
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
-    public BookingDto approve(long bookingId, long userId, Boolean approve) {
-        BookingDto booking = getBookingById(bookingId, userId);
-        log.info(String.format("patch1 bookingId=%d, userId=%d, approve=%s", bookingId, userId, approve));
+    public List<BookingDto> getAllBookingsByUser(String state, Long userId, BookingCursor cursor, int size) {
+        userService.getUserById(userId);
+        Pageable page = PageRequest.of(0, size);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = cursor.getStart();
+        Long id = cursor.getId();
+        switch (state) {
+            case "ALL":
+                return BookingMapper.listToBookingDto(bookingRepository
+                        .findAllBookingsBookerSeek(userId, start, id, page));
+            case "CURRENT":
+                return BookingMapper.listToBookingDto(bookingRepository
+                        .findAllCurrentBookingsBookerSeek(userId, now, start, id, page));
+            case "PAST":
+                return BookingMapper.listToBookingDto(bookingRepository
+                        .findAllPastBookingsBookerSeek(userId, now, start, id, page));
+            case "FUTURE":
+                return BookingMapper.listToBookingDto(bookingRepository
+                        .findAllFutureBookingsBookerSeek(userId, now, start, id, page));
+            case "WAITING":
+                return BookingMapper.listToBookingDto(bookingRepository
+                        .findAllWaitingBookingsBookerSeek(userId, now, BookingStatus.WAITING, start, id, page));
+            case "REJECTED":
+                return BookingMapper.listToBookingDto(bookingRepository
+                        .findAllRejectedBookingsBookerSeek(userId, BookingStatus.REJECTED, start, id, page));
+        }
+        throw new BadRequestException(String.format("Unknown state: %s", state));
+    }
 
-        if (itemService.getOwnerId(booking.getItem().getId()).equals(userId)
-                && booking.getStatus().equals(BookingStatus.APPROVED)) {
-            throw new DoubleApproveException("Статус бронирования вещи ранее уже был подтвержден");
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingDto> gettAllBookingsByOwner(String state, Long ownerId, BookingCursor cursor, int size) {
+        userService.getUserById(ownerId);
+        Pageable page = PageRequest.of(0, size);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = cursor.getStart();
+        Long id = cursor.getId();
+        switch (state) {
+            case "ALL":
+                return BookingMapper.listToBookingDto(bookingRepository
+                        .findAllBookingsOwnerSeek(ownerId, start, id, page));
+            case "CURRENT":
+                return BookingMapper.listToBookingDto(bookingRepository
+                        .findAllCurrentBookingsOwnerSeek(ownerId, now, start, id, page));
+            case "PAST":
+                return BookingMapper.listToBookingDto(bookingRepository
+                        .findAllPastBookingsOwnerSeek(ownerId, now, start, id, page));
+            case "FUTURE":
+                return BookingMapper.listToBookingDto(bookingRepository
+                        .findAllFutureBookingsOwnerSeek(ownerId, now, start, id, page));
+            case "WAITING":
+                return BookingMapper.listToBookingDto(bookingRepository
+                        .findAllWaitingBookingsOwnerSeek(ownerId, now, BookingStatus.WAITING, start, id, page));
+            case "REJECTED":
+                return BookingMapper.listToBookingDto(bookingRepository
+                        .findAllRejectedBookingsOwnerSeek(ownerId, BookingStatus.REJECTED, start, id, page));
+        }
+        throw new BadRequestException(String.format("Unknown state: %s", state));
+    }
+
+    private void checkTime(BookingDtoShort bookingDtoShort) {
+        if (!bookingDtoShort.getEnd().isAfter(bookingDtoShort.getStart())) {
+            throw new TimeDataException("недопустимое время бронирования");
         }
-        if (!itemService.getOwnerId(booking.getItem().getId()).equals(userId)) {
-            throw new NotFoundException("подтвержать и отклонять статус бронирования может только владелец вещи");
+    }
+
+    //подтвержденные бронирования вещей пакета в общем диапазоне дат, одним запросом
+    private Map<Long, List<Booking>> findApprovedInRange(Collection<Long> itemIds, Stream<LocalDateTime> starts,
+                                                         Stream<LocalDateTime> ends) {
+        LocalDateTime start = starts
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+        LocalDateTime end = ends
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        if (itemIds.isEmpty() || start == null || end == null) {
+            return Map.of();
         }
+        return bookingRepository.findAllOverlapping(itemIds, BookingStatus.APPROVED, start, end).stream()
+                .collect(Collectors.groupingBy(obj -> obj.getItem().getId()));
+    }
+
+    private void checkNoApprovedOverlap(Long bookingId, Long itemId, LocalDateTime start, LocalDateTime end,
+                                        Collection<Booking> approvedBookings) {
+        for (Booking approved : approvedBookings) {
+            if (!approved.getId().equals(bookingId)
+                    && approved.getItem().getId().equals(itemId)
+                    && approved.getStart().isBefore(end)
+                    && approved.getEnd().isAfter(start)) {
+                throw new BookingConflictException(String.format("вещь с id = %d уже забронирована на эти даты " +
+                        "(бронирование %d)", itemId, approved.getId()));
+            }
+        }
+    }
+
+    private Booking newBooking(BookingDtoShort bookingDtoShort, Item item, User booker) {
+        if (item.getOwnerId().equals(booker.getId())) {
+            throw new NotFoundException("владелец не может сам у себя арендовать )))");
+        }
+        if (!item.getAvailable()) {
+            throw new BookingUnavailableException(String.format("%s с id = %d не доступна для бронирования",
+                    item.getName(), item.getId()));
+        }
+        return Booking.builder()
+                .start(bookingDtoShort.getStart())
+                .end(bookingDtoShort.getEnd())
+                .item(item)
+                .booker(booker)
+                .status(BookingStatus.WAITING)
+                .build();
+    }
+
+    //статус меняется одним условным UPDATE, бронирование читается один раз уже после него;
+    //если строка не обновилась, по прочитанному бронированию выясняем причину
+    @Transactional
+    @Override
+    public BookingDto approve(long bookingId, long userId, Boolean approve) {
+        log.info(String.format("patch bookingId=%d, userId=%d, approve=%s", bookingId, userId, approve));
+        int updated;
         if (approve) {
-            booking.setStatus(BookingStatus.APPROVED);
-            log.info(String.format("patchDo bookingId=%d, userId=%d, approve=%s", bookingId, userId, approve));
-            bookingRepository.update(BookingStatus.APPROVED, bookingId);
+            //под замком вещи проверка пересечений и смена статуса не перемежаются с другим подтверждением
+            bookingSummaryService.lockItemOfBooking(bookingId);
+            updated = bookingRepository.approve(bookingId, userId, BookingStatus.WAITING, BookingStatus.APPROVED);
         } else {
-            booking.setStatus(BookingStatus.REJECTED);
-            log.info(String.format("patchDo bookingId=%d, userId=%d, approve=%s", bookingId, userId, approve));
-            bookingRepository.update(BookingStatus.REJECTED, bookingId);
+            updated = bookingRepository.updateStatus(bookingId, userId, BookingStatus.WAITING, BookingStatus.REJECTED);
+        }
+        Booking booking = bookingRepository.findWithItemAndBookerById(bookingId)
+                .orElseThrow(() -> new NotFoundException(String.format("Booking по id = %d не найден", bookingId)));
+        if (updated == 0) {
+            throw approveError(booking, userId);
         }
-        return booking;
+        if (!approve) {
+            bookingSummaryService.removeBooking(booking.getItem().getId(), bookingId);
+        }
+        return BookingMapper.toBookingDto(booking);
     }
 
+    //решения проверяются в памяти по одному чтению бронирований и подтвержденных дат, статусы меняются
+    //одним UPDATE на подтверждения и одним на отказы; ошибка в записи не отменяет остальные
+    @Transactional
+    @Override
+    public List<BookingBatchResultDto> approveAll(List<BookingDecisionDto> decisions, long ownerId) {
+        if (decisions.isEmpty() || decisions.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException(String.format("в пакете должно быть от 1 до %d решений", MAX_BATCH_SIZE));
+        }
+        Set<Long> bookingIds = decisions.stream()
+                .map(BookingDecisionDto::getBookingId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        //вещи блокируются до чтения, чтобы подтвержденные даты не поменялись до конца транзакции
+        Map<Long, Booking> bookings = Map.of();
+        if (!bookingIds.isEmpty()) {
+            bookingSummaryService.lockItemsOfBookings(bookingIds);
+            bookings = bookingRepository.findAllWithItemAndBookerByIdIn(bookingIds).stream()
+                    .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        }
+        Collection<Booking> toApprove = bookings.values().stream()
+                .filter(obj -> obj.getStatus().equals(BookingStatus.WAITING))
+                .collect(Collectors.toList());
+        Map<Long, List<Booking>> approvedBookings = findApprovedInRange(toApprove.stream()
+                        .map(obj -> obj.getItem().getId())
+                        .collect(Collectors.toSet()),
+                toApprove.stream().map(Booking::getStart), toApprove.stream().map(Booking::getEnd));
+        List<Booking> approvedInBatch = new ArrayList<>();
+        List<Booking> rejectedInBatch = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        BookingDto[] results = new BookingDto[decisions.size()];
+        String[] errors = new String[decisions.size()];
+        for (int i = 0; i < decisions.size(); i++) {
+            BookingDecisionDto decision = decisions.get(i);
+            try {
+                if (decision.getBookingId() == null || decision.getApproved() == null) {
+                    throw new BadRequestException("не указаны бронирование или решение");
+                }
+                if (!seen.add(decision.getBookingId())) {
+                    throw new BadRequestException(String.format("бронирование %d повторяется в пакете",
+                            decision.getBookingId()));
+                }
+                Booking booking = bookings.get(decision.getBookingId());
+                if (booking == null) {
+                    throw new NotFoundException(String.format("Booking по id = %d не найден", decision.getBookingId()));
+                }
+                if (!booking.getItem().getOwnerId().equals(ownerId)
+                        || !booking.getStatus().equals(BookingStatus.WAITING)) {
+                    throw approveError(booking, ownerId);
+                }
+                Long itemId = booking.getItem().getId();
+                BookingDto bookingDto = BookingMapper.toBookingDto(booking);
+                if (decision.getApproved()) {
+                    checkNoApprovedOverlap(booking.getId(), itemId, booking.getStart(), booking.getEnd(),
+                            approvedBookings.getOrDefault(itemId, List.of()));
+                    //пересечения и внутри пакета: подтверждается первое по порядку
+                    checkNoApprovedOverlap(booking.getId(), itemId, booking.getStart(), booking.getEnd(), approvedInBatch);
+                    approvedInBatch.add(booking);
+                    bookingDto.setStatus(BookingStatus.APPROVED);
+                } else {
+                    rejectedInBatch.add(booking);
+                    bookingDto.setStatus(BookingStatus.REJECTED);
+                }
+                results[i] = bookingDto;
+            } catch (BadRequestException | NotFoundException | BookingConflictException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+        int updated = 0;
+        if (!approvedInBatch.isEmpty()) {
+            updated += bookingRepository.updateStatuses(ids(approvedInBatch), ownerId, BookingStatus.WAITING,
+                    BookingStatus.APPROVED);
+        }
+        if (!rejectedInBatch.isEmpty()) {
+            updated += bookingRepository.updateStatuses(ids(rejectedInBatch), ownerId, BookingStatus.WAITING,
+                    BookingStatus.REJECTED);
+            bookingSummaryService.removeBookings(rejectedInBatch);
+        }
+        //отказ по одному бронированию идет без замка вещи и мог успеть раньше: откатываем пакет целиком
+        if (updated != approvedInBatch.size() + rejectedInBatch.size()) {
+            throw new BookingConflictException("бронирования пакета изменились во время обработки, повторите запрос");
+        }
+        List<BookingBatchResultDto> batchResults = new ArrayList<>(decisions.size());
+        for (int i = 0; i < decisions.size(); i++) {
+            batchResults.add(new BookingBatchResultDto(i, results[i], errors[i]));
+        }
+        return batchResults;
+    }
 
+    private List<Long> ids(List<Booking> bookings) {
+        return bookings.stream()
+                .map(Booking::getId)
+                .collect(Collectors.toList());
+    }
+
+    private RuntimeException approveError(Booking booking, long userId) {
+        if (!booking.getItem().getOwnerId().equals(userId)) {
+            if (booking.getBooker().getId().equals(userId)) {
+                return new NotFoundException("подтвержать и отклонять статус бронирования может только владелец вещи");
+            }
+            return new NotFoundException(String
+                    .format("пользователь с id=%d не имеет доступа к брони с id=%d", userId, booking.getId()));
+        }
+        if (booking.getStatus().equals(BookingStatus.APPROVED)) {
+            return new DoubleApproveException("Статус бронирования вещи ранее уже был подтвержден");
+        }
+        if (booking.getStatus().equals(BookingStatus.REJECTED)) {
+            return new DoubleApproveException("Бронирование вещи ранее уже было отклонено");
+        }
+        Long itemId = booking.getItem().getId();
+        checkNoApprovedOverlap(booking.getId(), itemId, booking.getStart(), booking.getEnd(), bookingRepository
+                .findAllOverlapping(List.of(itemId), BookingStatus.APPROVED, booking.getStart(), booking.getEnd()));
+        return new BookingConflictException(String.format("бронирование %d изменилось, повторите запрос",
+                booking.getId()));
+    }
 }
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.service;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.ItemBookingSummary;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface BookingSummaryService {
+    void addItem(Long itemId);
+
+    void addBooking(Booking booking);
+
+    void addBookings(Collection<Booking> bookings);
+
+    void removeBooking(Long itemId, Long bookingId);
+
+    void removeBookings(Collection<Booking> bookings);
+
+    void lockItemOfBooking(Long bookingId);
+
+    void lockItemsOfBookings(Collection<Long> bookingIds);
+
+    Map<Long, ItemBookingSummary> getSummaries(Collection<Long> itemIds);
+
+    void rollForward();
+}
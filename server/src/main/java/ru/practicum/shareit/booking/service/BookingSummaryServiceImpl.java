@@ -0,0 +1,197 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.ItemBookingSummary;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.ItemBookingSummaryRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+public class BookingSummaryServiceImpl implements BookingSummaryService {
+    private final ItemBookingSummaryRepository summaryRepository;
+    private final BookingRepository bookingRepository;
+
+    @Transactional
+    @Override
+    public void addItem(Long itemId) {
+        summaryRepository.save(new ItemBookingSummary(itemId, null, null));
+    }
+
+    @Transactional
+    @Override
+    public void addBooking(Booking booking) {
+        apply(getForUpdate(booking.getItem().getId()), booking, LocalDateTime.now());
+    }
+
+    @Transactional
+    @Override
+    public void addBookings(Collection<Booking> bookings) {
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> itemIds = bookings.stream()
+                .map(obj -> obj.getItem().getId())
+                .collect(Collectors.toSet());
+        Map<Long, ItemBookingSummary> summaries = summaryRepository.findAllByItemIdsForUpdate(itemIds).stream()
+                .collect(Collectors.toMap(ItemBookingSummary::getItemId, Function.identity()));
+        // текущие last/next нужны для сравнения по start: грузим одним запросом, а не по прокси на каждую вещь
+        bookingRepository.findAllById(summaries.values().stream()
+                .flatMap(obj -> Stream.of(obj.getLastBooking(), obj.getNextBooking()))
+                .filter(Objects::nonNull)
+                .map(Booking::getId)
+                .collect(Collectors.toSet()));
+        for (Booking booking : bookings) {
+            ItemBookingSummary summary = summaries.computeIfAbsent(booking.getItem().getId(),
+                    itemId -> summaryRepository.save(new ItemBookingSummary(itemId, null, null)));
+            apply(summary, booking, now);
+        }
+    }
+
+    @Transactional
+    @Override
+    public void removeBooking(Long itemId, Long bookingId) {
+        ItemBookingSummary summary = getForUpdate(itemId);
+        if (isSame(summary.getLastBooking(), bookingId) || isSame(summary.getNextBooking(), bookingId)) {
+            refresh(List.of(summary), LocalDateTime.now());
+        }
+    }
+
+    @Transactional
+    @Override
+    public void removeBookings(Collection<Booking> bookings) {
+        Set<Long> bookingIds = bookings.stream()
+                .map(Booking::getId)
+                .collect(Collectors.toSet());
+        Set<Long> itemIds = bookings.stream()
+                .map(obj -> obj.getItem().getId())
+                .collect(Collectors.toSet());
+        //пересчитываем только вещи, у которых убрали last или next
+        List<ItemBookingSummary> affected = summaryRepository.findAllByItemIdsForUpdate(itemIds).stream()
+                .filter(obj -> isAmong(obj.getLastBooking(), bookingIds) || isAmong(obj.getNextBooking(), bookingIds))
+                .collect(Collectors.toList());
+        if (!affected.isEmpty()) {
+            refresh(affected, LocalDateTime.now());
+        }
+    }
+
+    //строка проекции - замок вещи: подтверждения по одной вещи идут по очереди, разные вещи не ждут друг друга.
+    //Строки нет - создаем и блокируем ее, как getForUpdate, иначе подтверждение прошло бы без замка
+    @Transactional
+    @Override
+    public void lockItemOfBooking(Long bookingId) {
+        if (summaryRepository.findByBookingIdForUpdate(bookingId).isEmpty()) {
+            summaryRepository.insertMissingByBookingIds(List.of(bookingId));
+            summaryRepository.findByBookingIdForUpdate(bookingId);
+        }
+    }
+
+    //в пакете не известно заранее, у каких вещей нет строки: недостающие вставляются до блокировки
+    @Transactional
+    @Override
+    public void lockItemsOfBookings(Collection<Long> bookingIds) {
+        summaryRepository.insertMissingByBookingIds(bookingIds);
+        summaryRepository.findAllByBookingIdsForUpdate(bookingIds);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Map<Long, ItemBookingSummary> getSummaries(Collection<Long> itemIds) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, ItemBookingSummary> summaries = summaryRepository.findAllByItemIds(itemIds).stream()
+                .collect(Collectors.toMap(ItemBookingSummary::getItemId, Function.identity()));
+        List<Long> outdatedIds = summaries.values().stream()
+                .filter(obj -> obj.getNextBooking() != null && !obj.getNextBooking().getStart().isAfter(now))
+                .map(ItemBookingSummary::getItemId)
+                .collect(Collectors.toList());
+        if (!outdatedIds.isEmpty()) {
+            // до планового сдвига считаем по бронированиям, не трогая сохраненную проекцию
+            summaries.putAll(compute(outdatedIds, now));
+        }
+        return summaries;
+    }
+
+    @Scheduled(fixedDelayString = "${booking-summary.roll-forward-delay}")
+    @Transactional
+    @Override
+    public void rollForward() {
+        List<ItemBookingSummary> outdated = summaryRepository.findAllOutdatedForUpdate(LocalDateTime.now());
+        if (!outdated.isEmpty()) {
+            log.info("roll forward booking summary for {} items", outdated.size());
+            refresh(outdated, LocalDateTime.now());
+        }
+    }
+
+    private void apply(ItemBookingSummary summary, Booking booking, LocalDateTime now) {
+        Booking lastBooking = summary.getLastBooking();
+        Booking nextBooking = summary.getNextBooking();
+        if (booking.getStart().isBefore(now)
+                && (lastBooking == null || booking.getStart().isAfter(lastBooking.getStart()))) {
+            summary.setLastBooking(booking);
+        }
+        if (booking.getStart().isAfter(now)
+                && (nextBooking == null || booking.getStart().isBefore(nextBooking.getStart()))) {
+            summary.setNextBooking(booking);
+        }
+    }
+
+    private ItemBookingSummary getForUpdate(Long itemId) {
+        return summaryRepository.findByItemIdForUpdate(itemId)
+                .orElseGet(() -> summaryRepository.save(new ItemBookingSummary(itemId, null, null)));
+    }
+
+    private void refresh(List<ItemBookingSummary> summaries, LocalDateTime now) {
+        Map<Long, ItemBookingSummary> computed = compute(summaries.stream()
+                .map(ItemBookingSummary::getItemId)
+                .collect(Collectors.toList()), now);
+        for (ItemBookingSummary summary : summaries) {
+            ItemBookingSummary fresh = computed.get(summary.getItemId());
+            summary.setLastBooking(fresh != null ? fresh.getLastBooking() : null);
+            summary.setNextBooking(fresh != null ? fresh.getNextBooking() : null);
+        }
+    }
+
+    //id last/next по вещам одним запросом, сами бронирования - вторым
+    private Map<Long, ItemBookingSummary> compute(Collection<Long> itemIds, LocalDateTime now) {
+        List<Object[]> rows = bookingRepository.findLastAndNextBookingIds(itemIds, now,
+                BookingStatus.REJECTED.name());
+        Set<Long> bookingIds = rows.stream()
+                .flatMap(row -> Stream.of(toId(row[1]), toId(row[2])))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Booking> bookings = bookingIds.isEmpty() ? Collections.<Long, Booking>emptyMap()
+                : bookingRepository.findAllWithItemAndBookerByIdIn(bookingIds).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        return rows.stream()
+                .map(row -> new ItemBookingSummary(toId(row[0]), bookings.get(toId(row[1])),
+                        bookings.get(toId(row[2]))))
+                .collect(Collectors.toMap(ItemBookingSummary::getItemId, Function.identity()));
+    }
+
+    private static Long toId(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private boolean isSame(Booking booking, Long bookingId) {
+        return booking != null && Objects.equals(booking.getId(), bookingId);
+    }
+
+    private boolean isAmong(Booking booking, Set<Long> bookingIds) {
+        return booking != null && bookingIds.contains(booking.getId());
+    }
+}
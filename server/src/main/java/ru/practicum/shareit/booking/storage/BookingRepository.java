@@ -1,46 +1,89 @@
 package ru.practicum.shareit.booking.storage;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 
+import jakarta.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    //меняем статус
+    //меняем статус одним запросом: только из ожидания и только владельцем вещи, иначе 0 строк
     @Modifying
     @Query("UPDATE Booking b " +
-            "SET b.status = :status  " +
-            "WHERE b.id = :bookingId")
-    void update(BookingStatus status, Long bookingId);
+            "SET b.status = :status " +
+            "WHERE b.id = :bookingId " +
+            "AND b.status = :waiting " +
+            "AND b.item.id IN (SELECT i.id FROM Item i WHERE i.ownerId = :ownerId)")
+    int updateStatus(Long bookingId, Long ownerId, BookingStatus waiting, BookingStatus status);
 
-    //запросы по юзеру
+    //то же для подтверждения, плюс вещь не подтверждена на пересекающиеся даты
+    @Modifying
+    @Query("UPDATE Booking b " +
+            "SET b.status = :approved " +
+            "WHERE b.id = :bookingId " +
+            "AND b.status = :waiting " +
+            "AND b.item.id IN (SELECT i.id FROM Item i WHERE i.ownerId = :ownerId) " +
+            "AND NOT EXISTS (SELECT o.id FROM Booking o " +
+            "WHERE o.item.id = b.item.id AND o.status = :approved AND o.start < b.end AND o.end > b.start)")
+    int approve(Long bookingId, Long ownerId, BookingStatus waiting, BookingStatus approved);
+
+    //пакетная смена статуса с теми же условиями, решения по каждой записи уже приняты
+    @Modifying
+    @Query("UPDATE Booking b " +
+            "SET b.status = :status " +
+            "WHERE b.id IN :bookingIds " +
+            "AND b.status = :waiting " +
+            "AND b.item.id IN (SELECT i.id FROM Item i WHERE i.ownerId = :ownerId)")
+    int updateStatuses(Collection<Long> bookingIds, Long ownerId, BookingStatus waiting, BookingStatus status);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    Optional<Booking> findWithItemAndBookerById(Long id);
 
+    @EntityGraph(attributePaths = {"item", "booker"})
+    List<Booking> findAllWithItemAndBookerByIdIn(Collection<Long> ids);
+
+    //запросы по юзеру, вещь и арендатор загружаются тем же запросом
+    @EntityGraph(attributePaths = {"item", "booker"})
     List<Booking> findAllByBooker_Id(long id, Pageable page);
 
+    @EntityGraph(attributePaths = {"item", "booker"})
     List<Booking> findAllByBooker_IdAndStatusIs(Long id,
                                                                 BookingStatus status,
                                                                 Pageable page);
 
+    @EntityGraph(attributePaths = {"item", "booker"})
     List<Booking> findAllByBooker_IdAndEndIsAfterAndStartIsBefore(Long id,
                                                                                   LocalDateTime end,
                                                                                   LocalDateTime start,
                                                                                   Pageable page);
 
-    List<Booking> findAllByBooker_IdAndEndIsBefore(Long id,
-                                                                   LocalDateTime time,
+    //start < time следует из end < time, но дает диапазон по индексу (booker_id, start_date)
+    @EntityGraph(attributePaths = {"item", "booker"})
+    List<Booking> findAllByBooker_IdAndEndIsBeforeAndStartIsBefore(Long id,
+                                                                   LocalDateTime end,
+                                                                   LocalDateTime start,
                                                                    Pageable page);
 
+    @EntityGraph(attributePaths = {"item", "booker"})
     List<Booking> findAllByBooker_IdAndStartIsAfter(Long id,
                                                                     LocalDateTime time,
                                                                     Pageable page);
 
+    @EntityGraph(attributePaths = {"item", "booker"})
     List<Booking> findAllByBooker_IdAndStartIsAfterAndStatusIs(Long bookerId,
                                                                                LocalDateTime start,
                                                                                BookingStatus status,
@@ -48,52 +91,203 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     //запросы по хозяину
     @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
+            "join fetch b.item i " +
+            "join fetch b.booker " +
             "where i.ownerId = :ownerId " +
-            "order by b.start desc")
+            "order by b.start desc, b.id desc")
     List<Booking> findAllBookingsOwner(Long ownerId, Pageable page);
 
+    //выгрузка всей истории хозяина: строки без сущностей, драйвер читает их порциями по fetchSize
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new ru.practicum.shareit.booking.dto.BookingExportDto(b.id, b.start, b.end, b.status, " +
+            "i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where i.ownerId = :ownerId " +
+            "order by b.start desc, b.id desc")
+    Stream<BookingExportDto> streamAllBookingsOwner(Long ownerId);
+
     @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
+            "join fetch b.item i " +
+            "join fetch b.booker " +
             "where i.ownerId = :ownerId " +
             "and :time between b.start and b.end " +
-            "order by b.start desc")
+            "order by b.start desc, b.id desc")
     List<Booking> findAllCurrentBookingsOwner(Long ownerId, LocalDateTime time, Pageable page);
 
     @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
+            "join fetch b.item i " +
+            "join fetch b.booker " +
             "where i.ownerId = :ownerId " +
-            "and b.end < :time " +
-            "order by b.start desc")
+            "and b.end < :time and b.start < :time " +
+            "order by b.start desc, b.id desc")
     List<Booking> findAllPastBookingsOwner(Long ownerId, LocalDateTime time, Pageable page);
 
     @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
+            "join fetch b.item i " +
+            "join fetch b.booker " +
             "where i.ownerId = :ownerId " +
             "and b.start > :time " +
-            "order by b.start desc")
+            "order by b.start desc, b.id desc")
     List<Booking> findAllFutureBookingsOwner(Long ownerId, LocalDateTime time, Pageable page);
 
     @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
+            "join fetch b.item i " +
+            "join fetch b.booker " +
             "where i.ownerId = :ownerId " +
             "and b.start > :time and b.status = :status " +
-            "order by b.start desc")
+            "order by b.start desc, b.id desc")
     List<Booking> findAllWaitingBookingsOwner(Long ownerId, LocalDateTime time, BookingStatus status, Pageable page);
 
     @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
+            "join fetch b.item i " +
+            "join fetch b.booker " +
             "where i.ownerId = :ownerId " +
             "and b.status = :status " +
-            "order by b.start desc")
+            "order by b.start desc, b.id desc")
     List<Booking> findAllRejectedBookingsOwner(Long ownerId, BookingStatus status, Pageable page);
 
-    // для item
+    //keyset-запросы по юзеру: следующая страница после (start, id) курсора. start <= :start повторяет условие
+    //курсора без OR - по нему идет диапазон индекса (booker_id, start_date), а не перебор всех бронирований
+    @Query("select b from Booking b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.booker.id = :bookerId " +
+            "and b.start <= :start and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllBookingsBookerSeek(Long bookerId, LocalDateTime start, Long id, Pageable page);
+
+    @Query("select b from Booking b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.booker.id = :bookerId " +
+            "and b.end > :time and b.start < :time " +
+            "and b.start <= :start and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllCurrentBookingsBookerSeek(Long bookerId, LocalDateTime time,
+                                                   LocalDateTime start, Long id, Pageable page);
+
+    @Query("select b from Booking b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.booker.id = :bookerId " +
+            "and b.end < :time and b.start < :time " +
+            "and b.start <= :start and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllPastBookingsBookerSeek(Long bookerId, LocalDateTime time,
+                                                LocalDateTime start, Long id, Pageable page);
+
+    @Query("select b from Booking b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.booker.id = :bookerId " +
+            "and b.start > :time " +
+            "and b.start <= :start and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllFutureBookingsBookerSeek(Long bookerId, LocalDateTime time,
+                                                  LocalDateTime start, Long id, Pageable page);
+
+    @Query("select b from Booking b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.booker.id = :bookerId " +
+            "and b.start > :time and b.status = :status " +
+            "and b.start <= :start and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllWaitingBookingsBookerSeek(Long bookerId, LocalDateTime time, BookingStatus status,
+                                                   LocalDateTime start, Long id, Pageable page);
+
+    @Query("select b from Booking b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.booker.id = :bookerId " +
+            "and b.status = :status " +
+            "and b.start <= :start and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllRejectedBookingsBookerSeek(Long bookerId, BookingStatus status,
+                                                    LocalDateTime start, Long id, Pageable page);
+
+    //keyset-запросы по хозяину
     @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
-            "where i.id = :itemId " +
-            "order by b.start desc")
-    List<Booking> findAllBookingsItem(Long itemId);
+            "join fetch b.item i " +
+            "join fetch b.booker " +
+            "where i.ownerId = :ownerId " +
+            "and b.start <= :start and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllBookingsOwnerSeek(Long ownerId, LocalDateTime start, Long id, Pageable page);
+
+    @Query("select b from Booking b " +
+            "join fetch b.item i " +
+            "join fetch b.booker " +
+            "where i.ownerId = :ownerId " +
+            "and :time between b.start and b.end " +
+            "and b.start <= :start and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllCurrentBookingsOwnerSeek(Long ownerId, LocalDateTime time,
+                                                  LocalDateTime start, Long id, Pageable page);
+
+    @Query("select b from Booking b " +
+            "join fetch b.item i " +
+            "join fetch b.booker " +
+            "where i.ownerId = :ownerId " +
+            "and b.end < :time and b.start < :time " +
+            "and b.start <= :start and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllPastBookingsOwnerSeek(Long ownerId, LocalDateTime time,
+                                               LocalDateTime start, Long id, Pageable page);
+
+    @Query("select b from Booking b " +
+            "join fetch b.item i " +
+            "join fetch b.booker " +
+            "where i.ownerId = :ownerId " +
+            "and b.start > :time " +
+            "and b.start <= :start and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllFutureBookingsOwnerSeek(Long ownerId, LocalDateTime time,
+                                                 LocalDateTime start, Long id, Pageable page);
+
+    @Query("select b from Booking b " +
+            "join fetch b.item i " +
+            "join fetch b.booker " +
+            "where i.ownerId = :ownerId " +
+            "and b.start > :time and b.status = :status " +
+            "and b.start <= :start and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllWaitingBookingsOwnerSeek(Long ownerId, LocalDateTime time, BookingStatus status,
+                                                  LocalDateTime start, Long id, Pageable page);
+
+    @Query("select b from Booking b " +
+            "join fetch b.item i " +
+            "join fetch b.booker " +
+            "where i.ownerId = :ownerId " +
+            "and b.status = :status " +
+            "and b.start <= :start and (b.start < :start or (b.start = :start and b.id < :id)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllRejectedBookingsOwnerSeek(Long ownerId, BookingStatus status,
+                                                   LocalDateTime start, Long id, Pageable page);
+
+    // для item: id вещи, последнего и ближайшего бронирования (null, если нет). Каждое берется LIMIT 1
+    // по индексу (item_id, start_date), а не сравнением с max/min по всем бронированиям вещи на каждую строку
+    @Query(value = "select i.id, " +
+            "(select l.id from bookings l " +
+            "where l.item_id = i.id and l.status <> :status and l.start_date < :time " +
+            "order by l.start_date desc limit 1), " +
+            "(select n.id from bookings n " +
+            "where n.item_id = i.id and n.status <> :status and n.start_date > :time " +
+            "order by n.start_date limit 1) " +
+            "from items i " +
+            "where i.id in (:itemIds)", nativeQuery = true)
+    List<Object[]> findLastAndNextBookingIds(Collection<Long> itemIds, LocalDateTime time, String status);
+
+    //подтвержденные пересечения с [start, end): полуинтервалы, конец одной брони может совпасть с началом другой
+    @Query("select b from Booking b " +
+            "where b.item.id in :itemIds " +
+            "and b.status = :status " +
+            "and b.start < :end " +
+            "and b.end > :start")
+    List<Booking> findAllOverlapping(Collection<Long> itemIds, BookingStatus status,
+                                     LocalDateTime start, LocalDateTime end);
 
     //для comment
 
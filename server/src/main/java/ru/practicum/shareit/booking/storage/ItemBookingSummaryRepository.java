@@ -0,0 +1,67 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.model.ItemBookingSummary;
+
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ItemBookingSummaryRepository extends JpaRepository<ItemBookingSummary, Long> {
+    @Query("select s from ItemBookingSummary s " +
+            "left join fetch s.lastBooking lb " +
+            "left join fetch lb.booker " +
+            "left join fetch s.nextBooking nb " +
+            "left join fetch nb.booker " +
+            "where s.itemId in :itemIds")
+    List<ItemBookingSummary> findAllByItemIds(Collection<Long> itemIds);
+
+    //блокируем строку на время изменения
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ItemBookingSummary s " +
+            "where s.itemId = :itemId")
+    Optional<ItemBookingSummary> findByItemIdForUpdate(Long itemId);
+
+    //строка вещи бронирования, без отдельного чтения самого бронирования
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ItemBookingSummary s " +
+            "where s.itemId = (select b.item.id from Booking b where b.id = :bookingId)")
+    Optional<ItemBookingSummary> findByBookingIdForUpdate(Long bookingId);
+
+    //недостающие строки проекции вещей бронирований, чтобы было что блокировать. Существующие не трогаем:
+    //параллельная вставка той же строки ждет первую и ничего не делает, а не падает на первичном ключе
+    @Modifying
+    @Query(value = "insert into item_booking_summary (item_id) " +
+            "select distinct b.item_id from bookings b where b.id in (:bookingIds) order by b.item_id " +
+            "on conflict do nothing", nativeQuery = true)
+    int insertMissingByBookingIds(Collection<Long> bookingIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ItemBookingSummary s " +
+            "where s.itemId in (select b.item.id from Booking b where b.id in :bookingIds) " +
+            "order by s.itemId")
+    List<ItemBookingSummary> findAllByBookingIdsForUpdate(Collection<Long> bookingIds);
+
+    //порядок по item_id, чтобы параллельные пакеты не блокировали друг друга крест-накрест
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ItemBookingSummary s " +
+            "where s.itemId in :itemIds " +
+            "order by s.itemId")
+    List<ItemBookingSummary> findAllByItemIdsForUpdate(Collection<Long> itemIds);
+
+    //next уже наступил - пора сдвигать. Блокируем, как и при добавлении бронирования, в порядке item_id:
+    //иначе бронирование, добавленное между чтением и записью сдвига, затиралось бы пересчетом.
+    //условие подзапросом, а не join: блокируются только строки проекции
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ItemBookingSummary s " +
+            "where s.nextBooking.id in (select b.id from Booking b where b.start <= :time) " +
+            "order by s.itemId")
+    List<ItemBookingSummary> findAllOutdatedForUpdate(LocalDateTime time);
+}
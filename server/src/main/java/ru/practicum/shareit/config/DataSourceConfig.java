@@ -0,0 +1,72 @@
+package ru.practicum.shareit.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import jakarta.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class DataSourceConfig {
+
+    //основная БД: запись, Flyway и все транзакции без readOnly
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    //пулы реплик повторяют настройки основного (учетные данные, размер пула из профиля prod), отличается адрес
+    @Bean
+    @ConditionalOnProperty(name = "replica-datasource.urls")
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                               @Value("${replica-datasource.urls}") List<String> urls,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        String poolName = primaryDataSource.getPoolName() != null ? primaryDataSource.getPoolName() : "shareit";
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setJdbcUrl(url.trim());
+            replica.setPoolName(poolName + "-replica-" + (replicas.size() + 1));
+            replica.setReadOnly(true);
+            meterRegistry.ifAvailable(registry ->
+                    replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(replica);
+        }
+        return new ReplicaDataSource(replicas);
+    }
+
+    //соединение берется при первом запросе транзакции: к этому моменту Spring уже выставил
+    //readOnly, и @Transactional(readOnly = true) получает соединение реплики
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 ObjectProvider<ReplicaDataSource> replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        replicaDataSource.ifAvailable(dataSource::setReadOnlyDataSource);
+        return dataSource;
+    }
+
+    //Spring Boot подключает слушатель к менеджеру транзакций JPA
+    @Bean
+    @ConditionalOnProperty(name = "replica-datasource.urls")
+    public ReplicaCacheModeListener replicaCacheModeListener(EntityManagerFactory entityManagerFactory) {
+        return new ReplicaCacheModeListener(entityManagerFactory);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("prod")
+public class DataSourcePoolConfig {
+
+    //соединений больше, чем БД выполняет параллельно, только удлиняют очередь внутри нее;
+    //minimumIdle = maximumPoolSize: пул не растет и не сжимается под нагрузкой
+    @Bean
+    public static BeanPostProcessor dataSourcePoolSizer(@Value("${db-pool.size}") int size) {
+        int poolSize = size > 0 ? size : Runtime.getRuntime().availableProcessors() * 2 + 1;
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    ((HikariDataSource) bean).setMaximumPoolSize(poolSize);
+                    ((HikariDataSource) bean).setMinimumIdle(poolSize);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+@Configuration
+public class EntityCacheConfig {
+    public static final String OWNER_ITEMS_REGION = "owner-items";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(@Value("${entity-cache.maximum-size}") long maximumSize,
+                                           @Value("${entity-cache.expire-after-write}") Duration expireAfterWrite) {
+        //у каждого контекста свой менеджер: общий менеджер по умолчанию закрылся бы вместе с любым из контекстов
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(URI.create("shareit-" + UUID.randomUUID()),
+                provider.getDefaultClassLoader());
+        // default-update-timestamps-region не ограничиваем: его вытеснение отдает устаревшие результаты запросов
+        List<String> regions = List.of(User.class.getName(), Item.class.getName(), OWNER_ITEMS_REGION);
+        for (String region : regions) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(region, configuration);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+}
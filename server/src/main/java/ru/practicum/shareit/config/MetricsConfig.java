@@ -0,0 +1,28 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.metrics.SqlStatementCounter;
+import ru.practicum.shareit.metrics.SqlStatementEndpoint;
+import ru.practicum.shareit.metrics.SqlStatementMetricsFilter;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementMetricsFilter> sqlStatementMetricsFilter(
+            SqlStatementCounter sqlStatementCounter, SqlStatementEndpoint sqlStatementEndpoint,
+            MeterRegistry meterRegistry) {
+        return new FilterRegistrationBean<>(new SqlStatementMetricsFilter(sqlStatementCounter, sqlStatementEndpoint,
+                meterRegistry));
+    }
+}
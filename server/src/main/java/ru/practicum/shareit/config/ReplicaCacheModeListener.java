@@ -0,0 +1,35 @@
+package ru.practicum.shareit.config;
+
+import org.hibernate.jpa.SpecHints;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+//readOnly-транзакция читает с реплики, а реплика может отставать: такие чтения берут сущности и результаты
+//запросов из кэша второго уровня, но не кладут их туда. Иначе устаревшая копия отдавалась бы и чтениям
+//с основной БД, пока ее не вытеснит срок или следующая запись
+public class ReplicaCacheModeListener implements TransactionExecutionListener {
+    private final EntityManagerFactory entityManagerFactory;
+
+    public ReplicaCacheModeListener(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    //вызывается только для новой транзакции: readOnly-метод внутри пишущей транзакции читает основную БД
+    @Override
+    public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+        if (beginFailure != null || !transaction.isReadOnly()) {
+            return;
+        }
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (entityManager != null) {
+            //свойство EntityManager, а не режим сессии: find и запросы выводят режим кэша из свойств
+            entityManager.setProperty(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        }
+    }
+}
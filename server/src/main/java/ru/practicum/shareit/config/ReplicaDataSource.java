@@ -0,0 +1,38 @@
+package ru.practicum.shareit.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//соединения для readOnly-транзакций по очереди берутся из пулов реплик
+public class ReplicaDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    private final List<HikariDataSource> replicas;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public ReplicaDataSource(List<HikariDataSource> replicas) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("не задан ни один адрес реплики в replica-datasource.urls");
+        }
+        this.replicas = replicas;
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Math.floorMod(counter.getAndIncrement(), replicas.size());
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.exceptions;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingRequestValueException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,10 +11,13 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.practicum.shareit.exceptions.model.AccessException;
 import ru.practicum.shareit.exceptions.model.BadRequestException;
+import ru.practicum.shareit.exceptions.model.ConflictException;
 import ru.practicum.shareit.exceptions.model.ErrorResponse;
 import ru.practicum.shareit.exceptions.model.NotFoundException;
 
-import javax.validation.ValidationException;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ValidationException;
+import java.io.IOException;
 
 @RestControllerAdvice
 @Slf4j
@@ -40,6 +44,13 @@ public class ErrorHandler {
         return new ErrorResponse(exception.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleConflictException(final ConflictException exception) {
+        log.warn("409 {}", exception.getMessage());
+        return new ErrorResponse(exception.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleUnknownDataException(NotFoundException exception) {
@@ -54,6 +65,18 @@ public class ErrorHandler {
         return new ErrorResponse(exception.getMessage());
     }
 
+    //ошибка ввода-вывода до начала ответа - обычная 500. Если тело выгрузки уже передавалось,
+    //статус отправлен и ответить ошибкой нельзя: только записываем в лог
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleIOException(IOException exception, HttpServletResponse response) {
+        if (response.isCommitted()) {
+            log.warn("ответ прерван: {}", exception.getMessage());
+            return null;
+        }
+        log.warn("500 {}", exception.getMessage());
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ErrorResponse(exception.getMessage()));
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleThrowable(final Exception exception) {
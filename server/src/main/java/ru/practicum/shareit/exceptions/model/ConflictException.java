@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exceptions.model;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
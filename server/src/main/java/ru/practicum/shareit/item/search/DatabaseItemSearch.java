@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.util.OffsetPageRequest;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "item-search.backend", havingValue = "database", matchIfMissing = true)
+@AllArgsConstructor
+public class DatabaseItemSearch implements ItemSearch {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<Item> search(String text, int from, int size) {
+        return itemRepository.searchAvailableItems(text, OffsetPageRequest.of(from, size));
+    }
+
+    @Override
+    public void update(Item item) {
+    }
+}
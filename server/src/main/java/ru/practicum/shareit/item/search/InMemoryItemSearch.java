@@ -0,0 +1,182 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.util.OffsetPageRequest;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnProperty(name = "item-search.backend", havingValue = "memory")
+@Slf4j
+public class InMemoryItemSearch implements ItemSearch {
+    private static final int GRAM_LENGTH = 3;
+
+    private final ItemRepository itemRepository;
+    private final int rebuildBatchSize;
+    private final Map<Long, IndexedItem> items = new ConcurrentHashMap<>();
+    private final Map<String, LongPostingList> postings = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public InMemoryItemSearch(ItemRepository itemRepository,
+                              @Value("${item-search.rebuild-batch-size:10000}") int rebuildBatchSize) {
+        this.itemRepository = itemRepository;
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    @Override
+    public List<Item> search(String text, int from, int size) {
+        String query = normalize(text);
+        // пока индекс не построен и для коротких запросов ищем в базе
+        if (!ready || query.length() < GRAM_LENGTH) {
+            return itemRepository.searchAvailableItems(text, OffsetPageRequest.of(from, size));
+        }
+        List<LongPostingList> lists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            LongPostingList list = postings.get(gram);
+            if (list == null) {
+                return new ArrayList<>();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(LongPostingList::size));
+        long[] candidates = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = lists.get(i).retainAll(candidates);
+        }
+        List<Long> ids = Arrays.stream(candidates)
+                .mapToObj(items::get)
+                .filter(Objects::nonNull)
+                .filter(IndexedItem::getAvailable)
+                .filter(obj -> obj.getName().contains(query) || obj.getDescription().contains(query))
+                .sorted(Comparator.comparingInt((IndexedItem obj) -> rank(obj, query))
+                        .thenComparing(IndexedItem::getId))
+                .skip(from)
+                .limit(size)
+                .map(IndexedItem::getId)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Item> found = itemRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void update(Item item) {
+        IndexedItem indexedItem = new IndexedItem(item.getId(), normalize(item.getName()),
+                normalize(item.getDescription()), item.getAvailable());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(indexedItem);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(indexedItem);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        Long maxId = itemRepository.findMaxId();
+        if (maxId != null) {
+            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            try {
+                List<Future<?>> batches = new ArrayList<>();
+                for (long fromId = 0; fromId < maxId; fromId += rebuildBatchSize) {
+                    long batchFromId = fromId;
+                    long batchToId = Math.min(fromId + rebuildBatchSize, maxId);
+                    batches.add(executor.submit(() -> itemRepository.findAllIndexedItems(batchFromId, batchToId)
+                            .forEach(this::putIfAbsent)));
+                }
+                for (Future<?> batch : batches) {
+                    batch.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.error("не удалось построить индекс поиска, поиск остается в базе", e);
+                return;
+            } finally {
+                executor.shutdown();
+            }
+        }
+        postings.values().forEach(LongPostingList::trimToSize);
+        ready = true;
+        log.info("индекс поиска построен: {} items, {} trigrams за {} ms",
+                items.size(), postings.size(), System.currentTimeMillis() - started);
+    }
+
+    private synchronized void put(IndexedItem item) {
+        IndexedItem previous = items.put(item.getId(), item);
+        Set<String> grams = grams(item);
+        if (previous != null) {
+            grams(previous).stream()
+                    .filter(gram -> !grams.contains(gram))
+                    .map(postings::get)
+                    .filter(Objects::nonNull)
+                    .forEach(list -> list.remove(item.getId()));
+        }
+        grams.forEach(gram -> postings.computeIfAbsent(gram, key -> new LongPostingList()).add(item.getId()));
+    }
+
+    private void putIfAbsent(IndexedItem item) {
+        IndexedItem indexedItem = new IndexedItem(item.getId(), normalize(item.getName()),
+                normalize(item.getDescription()), item.getAvailable());
+        if (items.putIfAbsent(indexedItem.getId(), indexedItem) == null) {
+            grams(indexedItem).forEach(gram -> postings.computeIfAbsent(gram, key -> new LongPostingList())
+                    .add(indexedItem.getId()));
+        }
+    }
+
+    private static int rank(IndexedItem item, String query) {
+        if (item.getName().equals(query)) {
+            return 0;
+        }
+        if (item.getName().startsWith(query)) {
+            return 1;
+        }
+        return item.getName().contains(query) ? 2 : 3;
+    }
+
+    private static Set<String> grams(IndexedItem item) {
+        Set<String> grams = grams(item.getName());
+        grams.addAll(grams(item.getDescription()));
+        return grams;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.search;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+public interface ItemSearch {
+    List<Item> search(String text, int from, int size);
+
+    void update(Item item);
+}
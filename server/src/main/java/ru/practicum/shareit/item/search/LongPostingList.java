@@ -0,0 +1,63 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Arrays;
+
+class LongPostingList {
+    private long[] ids = new long[2];
+    private int size;
+
+    synchronized void add(long id) {
+        if (size > 0 && ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return;
+        }
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        ensureCapacity();
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+    }
+
+    synchronized void remove(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+    }
+
+    synchronized void trimToSize() {
+        ids = Arrays.copyOf(ids, Math.max(size, 1));
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    synchronized long[] retainAll(long[] candidates) {
+        long[] result = new long[candidates.length];
+        int count = 0;
+        for (long candidate : candidates) {
+            if (Arrays.binarySearch(ids, 0, size, candidate) >= 0) {
+                result[count++] = candidate;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+    }
+}
@@ -2,12 +2,13 @@ package ru.practicum.shareit.item.service;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.ItemBookingSummary;
+import ru.practicum.shareit.booking.service.BookingSummaryService;
 import ru.practicum.shareit.request.service.RequestService;
 import ru.practicum.shareit.util.*;
 import ru.practicum.shareit.booking.storage.BookingRepository;
@@ -18,17 +19,19 @@ import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearch;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.util.OffsetPageRequest;
 
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -47,6 +50,10 @@ public class ItemServiceImpl implements ItemService {
 
     private final RequestService requestService;
 
+    private final BookingSummaryService bookingSummaryService;
+
+    private final ItemSearch itemSearch;
+
     @Transactional
     @Override
     public ItemDto addItem(ItemDto itemDto, Long userId) {
@@ -55,10 +62,13 @@ public class ItemServiceImpl implements ItemService {
         item.setOwnerId(userId);
         item.setItemRequest(itemDto.getRequestId() != null ?
                 RequestMapper.fromDto(requestService.getById(userId, itemDto.getRequestId())) : null);
-        return toItemDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        bookingSummaryService.addItem(savedItem.getId());
+        itemSearch.update(savedItem);
+        return toItemDto(savedItem);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public ItemDto getItemById(Long itemId, Long userId) {
         ItemDto result;
@@ -66,43 +76,44 @@ public class ItemServiceImpl implements ItemService {
                 .orElseThrow(() -> new NotFoundException(String.format("item по id %d не найден", itemId)));
         result = ItemMapper.toItemDto(item);
         if (Objects.equals(item.getOwnerId(), userId)) {
-            setBookings(result);
+            setBookings(List.of(result));
         }
         setCommet(result);
         return result;
     }
 
-    public ItemDto setBookings(ItemDto itemDto) {
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> bookings = bookingRepository.findAllBookingsItem(itemDto.getId());
-        Booking lastBooking = bookings.stream()
-                .filter(obj -> !(obj.getStatus().equals(BookingStatus.REJECTED)))
-                .filter(obj -> obj.getStart().isBefore(now))
-                .min((obj1, obj2) -> obj2.getStart().compareTo(obj1.getStart())).orElse(null);
-        Booking nextBooking = bookings.stream()
-                .filter(obj -> !(obj.getStatus().equals(BookingStatus.REJECTED)))
-                .filter(obj -> obj.getStart().isAfter(now))
-                .min(Comparator.comparing(Booking::getStart)).orElse(null);
-        if (lastBooking != null) {
-            itemDto.setLastBooking(BookingMapper.toItemBookingDto(lastBooking));
+    public List<ItemDto> setBookings(List<ItemDto> itemDtos) {
+        if (itemDtos.isEmpty()) {
+            return itemDtos;
         }
-        if (nextBooking != null) {
-            itemDto.setNextBooking(BookingMapper.toItemBookingDto(nextBooking));
+        List<Long> itemIds = itemDtos.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+        Map<Long, ItemBookingSummary> summaries = bookingSummaryService.getSummaries(itemIds);
+        for (ItemDto itemDto : itemDtos) {
+            ItemBookingSummary summary = summaries.get(itemDto.getId());
+            if (summary == null) {
+                continue;
+            }
+            if (summary.getLastBooking() != null) {
+                itemDto.setLastBooking(BookingMapper.toItemBookingDto(summary.getLastBooking()));
+            }
+            if (summary.getNextBooking() != null) {
+                itemDto.setNextBooking(BookingMapper.toItemBookingDto(summary.getNextBooking()));
+            }
         }
-        return itemDto;
+        return itemDtos;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public List<ItemDto> getAllUsersItems(Long userId, int from, int size) {
         Sort sortByCreated = Sort.by(Sort.Direction.ASC, "id");
-        Pageable page = PageRequest.of(from / size, size, sortByCreated);
-        List<ItemDto> item = itemRepository.findAllByOwnerId(userId, page).stream()
+        Pageable page = OffsetPageRequest.of(from, size, sortByCreated);
+        List<ItemDto> items = itemRepository.findAllByOwnerId(userId, page).stream()
                 .map(ItemMapper::toItemDto)
                 .collect(Collectors.toList());
-        return item.stream()
-                .map(this::setBookings)
-                .collect(Collectors.toList());
+        return setBookings(items);
     }
 
     @Transactional
@@ -124,22 +135,23 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getAvailable() != null) {
             item.setAvailable(itemDto.getAvailable());
         }
-        return toItemDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        itemSearch.update(savedItem);
+        return toItemDto(savedItem);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public List<ItemDto> searchAvailableItems(String text, int from, int size) {
-        Pageable page = PageRequest.of(from / size, size);
         if (text == null || text.isBlank()) {
             return new ArrayList<>();
         }
-        return itemRepository.searchAvailableItems(text, page).stream()
+        return itemSearch.search(text, from, size).stream()
                 .map(ItemMapper::toItemDto)
                 .collect(Collectors.toList());
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public Long getOwnerId(Long itemId) {
         return itemRepository.findById(itemId)
@@ -3,23 +3,52 @@ package ru.practicum.shareit.item.storage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.ForRequestItemDto;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.item.search.IndexedItem;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 
+import static ru.practicum.shareit.config.EntityCacheConfig.OWNER_ITEMS_REGION;
+
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = OWNER_ITEMS_REGION)
+    })
     List<Item> findAllByOwnerId(Long userId, Pageable page);
 
-@Query("select item from Item item " +
-        "where item.available = true and " +
-        "upper(item.name) like upper(concat('%', ?1, '%')) " +
-        "or upper(item.description) like upper(concat('%', ?1, '%')) " +
-        "and item.available = true")
+    //сначала совпадения по названию (точное, с начала, в середине), потом по описанию
+    @Query("select item from Item item " +
+            "where item.available = true and " +
+            "(upper(item.name) like upper(concat('%', ?1, '%')) " +
+            "or upper(item.description) like upper(concat('%', ?1, '%'))) " +
+            "order by case " +
+            "when upper(item.name) = upper(?1) then 0 " +
+            "when upper(item.name) like upper(concat(?1, '%')) then 1 " +
+            "when upper(item.name) like upper(concat('%', ?1, '%')) then 2 " +
+            "else 3 end, item.id")
     List<Item> searchAvailableItems(String text, Pageable page);
 
-    List<Item> findAllByItemRequest(ItemRequest itemRequest);
+    @Query("select new ru.practicum.shareit.item.dto.ForRequestItemDto(item.id, item.name, item.description, " +
+            "item.available, item.itemRequest.id) " +
+            "from Item item " +
+            "where item.itemRequest.id in :requestIds " +
+            "order by item.id")
+    List<ForRequestItemDto> findAllByRequestIds(Collection<Long> requestIds);
+
+    //для построения индекса поиска
+    @Query("select max(item.id) from Item item")
+    Long findMaxId();
+
+    @Query("select new ru.practicum.shareit.item.search.IndexedItem(item.id, item.name, item.description, item.available) " +
+            "from Item item " +
+            "where item.id > :fromId and item.id <= :toId")
+    List<IndexedItem> findAllIndexedItems(Long fromId, Long toId);
 
 }
@@ -0,0 +1,106 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//время методов сервисов и число строк, возвращенных репозиториями;
+//время самих запросов репозиториев Spring Boot пишет в spring.data.repository.invocations
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MetricsAspect {
+    //размеры страниц и пакетов, а не стандартные корзины до Long.MAX_VALUE
+    private static final double[] ROW_BUCKETS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 5000};
+    private static final Set<String> STATES = Set.of("ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED");
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Around("execution(public * ru.practicum.shareit..service.*ServiceImpl.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("shareit.service.invocations")
+                    .tag("service", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("state", state(joinPoint))
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    @AfterReturning(pointcut = "execution(* ru.practicum.shareit..storage.*Repository+.*(..))", returning = "result")
+    public void countRows(JoinPoint joinPoint, Object result) {
+        Integer rows = rows(result);
+        if (rows == null) {
+            return;
+        }
+        DistributionSummary.builder("shareit.repository.rows")
+                .baseUnit("rows")
+                .serviceLevelObjectives(ROW_BUCKETS)
+                .tag("repository", repositoryName(joinPoint))
+                .tag("method", joinPoint.getSignature().getName())
+                .register(meterRegistry)
+                .record(rows);
+    }
+
+    //state выборок бронирований; неизвестные значения в одну серию, чтобы не плодить метрики
+    private String state(JoinPoint joinPoint) {
+        String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        for (int i = 0; i < args.length; i++) {
+            if ("state".equals(names[i])) {
+                //Set.of не принимает null в contains: NPE в finally подменил бы результат сервиса
+                return args[i] instanceof String && STATES.contains(args[i]) ? (String) args[i] : "UNKNOWN";
+            }
+        }
+        return "none";
+    }
+
+    private Integer rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return null;
+    }
+
+    //унаследованные методы (findById, saveAll) объявлены в JpaRepository, имя берем у интерфейса бина
+    private String repositoryName(JoinPoint joinPoint) {
+        return repositoryNames.computeIfAbsent(joinPoint.getTarget().getClass(), type -> {
+            for (Class<?> repositoryInterface : type.getInterfaces()) {
+                if (repositoryInterface.getName().startsWith("ru.practicum.shareit")) {
+                    return repositoryInterface.getSimpleName();
+                }
+            }
+            return joinPoint.getSignature().getDeclaringType().getSimpleName();
+        });
+    }
+}
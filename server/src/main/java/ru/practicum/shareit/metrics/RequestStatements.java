@@ -0,0 +1,30 @@
+package ru.practicum.shareit.metrics;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+//SQL-запросы одного HTTP-запроса: всего и сколько раз повторился каждый текст
+public class RequestStatements {
+    @Getter
+    private int count;
+    private final Map<String, Integer> repeats = new HashMap<>();
+
+    void add(String sql) {
+        count++;
+        repeats.merge(sql, 1, Integer::sum);
+    }
+
+    public Set<String> getStatements() {
+        return repeats.keySet();
+    }
+
+    //чаще всего повторенный запрос: один текст с разными параметрами - загрузка в цикле
+    public Map.Entry<String, Integer> getMostRepeated() {
+        return repeats.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElse(null);
+    }
+}
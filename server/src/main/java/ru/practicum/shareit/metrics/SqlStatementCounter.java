@@ -0,0 +1,44 @@
+package ru.practicum.shareit.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exceptions.model.SqlBudgetExceededException;
+
+//считает SQL-запросы, подготовленные Hibernate в потоке HTTP-запроса; запрос сервера обрабатывается в одном потоке,
+//запросы вне HTTP (планировщик) не считаются
+@Component
+public class SqlStatementCounter implements StatementInspector {
+    private final ThreadLocal<RequestStatements> current = new ThreadLocal<>();
+    private final int maxStatements;
+    private final boolean failOnExceed;
+
+    public SqlStatementCounter(@Value("${sql-budget.max-statements}") int maxStatements,
+                               @Value("${sql-budget.fail-on-exceed}") boolean failOnExceed) {
+        this.maxStatements = maxStatements;
+        this.failOnExceed = failOnExceed;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        RequestStatements statements = current.get();
+        if (statements != null) {
+            statements.add(sql);
+            if (failOnExceed && statements.getCount() > maxStatements) {
+                throw new SqlBudgetExceededException(String.format("запрос выполнил больше %d SQL-запросов",
+                        maxStatements));
+            }
+        }
+        return sql;
+    }
+
+    public void start() {
+        current.set(new RequestStatements());
+    }
+
+    public RequestStatements finish() {
+        RequestStatements statements = current.get();
+        current.remove();
+        return statements;
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+//эндпоинты с наибольшим числом SQL-запросов на HTTP-запрос: /actuator/sqlstatements
+@Component
+@Endpoint(id = "sqlstatements")
+@Slf4j
+public class SqlStatementEndpoint {
+    private static final int TOP = 20;
+
+    private final int maxStatements;
+    private final int repeatThreshold;
+    private final Map<String, EndpointStatements> statistics = new ConcurrentHashMap<>();
+
+    public SqlStatementEndpoint(@Value("${sql-budget.max-statements}") int maxStatements,
+                                @Value("${sql-budget.repeat-threshold}") int repeatThreshold) {
+        this.maxStatements = maxStatements;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    public void record(String endpoint, RequestStatements statements) {
+        Map.Entry<String, Integer> mostRepeated = statements.getMostRepeated();
+        boolean overBudget = statements.getCount() > maxStatements;
+        boolean suspectedN1 = mostRepeated != null && mostRepeated.getValue() >= repeatThreshold;
+        if (overBudget) {
+            log.warn("{}: {} SQL-запросов при бюджете {}", endpoint, statements.getCount(), maxStatements);
+        }
+        if (suspectedN1) {
+            log.warn("{}: запрос повторился {} раз, похоже на N+1: {}", endpoint, mostRepeated.getValue(),
+                    compact(mostRepeated.getKey()));
+        }
+        statistics.computeIfAbsent(endpoint, EndpointStatements::new)
+                .add(statements.getCount(), overBudget, suspectedN1 ? mostRepeated : null);
+    }
+
+    @ReadOperation
+    public SqlStatementReport report() {
+        return new SqlStatementReport(maxStatements, repeatThreshold, statistics.values().stream()
+                .map(EndpointStatements::snapshot)
+                .sorted(Comparator.comparingInt(EndpointReport::getMaxStatements).reversed())
+                .limit(TOP)
+                .collect(Collectors.toList()));
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.clear();
+    }
+
+    private static String compact(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+
+    private static final class EndpointStatements {
+        private final String endpoint;
+        private long requests;
+        private long totalStatements;
+        private int maxStatements;
+        private long overBudget;
+        private String repeatedSql;
+        private int repeats;
+
+        private EndpointStatements(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private synchronized void add(int statements, boolean overBudget, Map.Entry<String, Integer> repeated) {
+            requests++;
+            totalStatements += statements;
+            maxStatements = Math.max(maxStatements, statements);
+            if (overBudget) {
+                this.overBudget++;
+            }
+            if (repeated != null && repeated.getValue() >= repeats) {
+                repeatedSql = compact(repeated.getKey());
+                repeats = repeated.getValue();
+            }
+        }
+
+        private synchronized EndpointReport snapshot() {
+            return new EndpointReport(endpoint, requests, (double) totalStatements / requests, maxStatements,
+                    overBudget, repeatedSql, repeats);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class SqlStatementReport {
+        private final int maxStatements;
+        private final int repeatThreshold;
+        private final List<EndpointReport> endpoints;
+    }
+
+    //repeatedSql - самый частый повтор одного запроса за HTTP-запрос, если он дотянул до порога N+1
+    @Getter
+    @AllArgsConstructor
+    public static final class EndpointReport {
+        private final String endpoint;
+        private final long requests;
+        private final double averageStatements;
+        private final int maxStatements;
+        private final long overBudget;
+        private final String repeatedSql;
+        private final int repeats;
+    }
+}
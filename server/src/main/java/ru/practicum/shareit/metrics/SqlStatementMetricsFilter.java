@@ -0,0 +1,46 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+//число SQL-запросов на один HTTP-запрос. open-in-view выключен: при сериализации ответа сессии уже нет и ленивых
+//загрузок не бывает, все запросы выполняются в транзакциях сервисов
+@RequiredArgsConstructor
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+    private static final double[] STATEMENT_BUCKETS = {1, 2, 3, 5, 8, 13, 20, 50, 100, 500};
+
+    private final SqlStatementCounter counter;
+    private final SqlStatementEndpoint endpoint;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        counter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestStatements statements = counter.finish();
+            //шаблон пути, а не сам путь: id в адресе не раздувают число серий
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder("shareit.request.statements")
+                    .baseUnit("statements")
+                    .serviceLevelObjectives(STATEMENT_BUCKETS)
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(statements.getCount());
+            endpoint.record(request.getMethod() + " " + uri, statements);
+        }
+    }
+}
@@ -2,12 +2,10 @@ package ru.practicum.shareit.request.model;
 
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
-import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
-import javax.persistence.*;
+import jakarta.persistence.*;
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Getter
 @Setter
@@ -22,11 +20,9 @@ public class ItemRequest {
     private Long id;
     @Column(nullable = false)
     private String description;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "requester_id")
     private User requester;
     @CreationTimestamp
     private LocalDateTime created;
-    @Transient
-    private List<Item> items;
 }
@@ -1,11 +1,13 @@
 package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exceptions.model.NotFoundException;
+import ru.practicum.shareit.item.dto.ForRequestItemDto;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -13,10 +15,14 @@ import ru.practicum.shareit.request.storage.RequestsRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.util.ItemMapper;
+import ru.practicum.shareit.util.OffsetPageRequest;
 import ru.practicum.shareit.util.RequestMapper;
 import ru.practicum.shareit.util.UserMapper;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,6 +33,7 @@ public class RequestServiceImpl implements RequestService {
     private final ItemRepository itemRepository;
 
     @Override
+    @Transactional
     public ItemRequestDto addRequest(long userId, ItemRequestDto itemRequestDto) {
         User user = UserMapper.toUser(userService.getUserById(userId));
         ItemRequest itemRequest = ItemRequest.builder()
@@ -37,33 +44,44 @@ public class RequestServiceImpl implements RequestService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemRequestDto getById(long userId, long requestId) {
         UserDto userDto = userService.getUserById(userId);
         ItemRequest itemRequest = requestsRepository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException(String.format("request с id = %d не найден", requestId)));
-        itemRequest.setItems(itemRepository.findAllByItemRequest(itemRequest));
-        ItemRequestDto itemRequestDto = RequestMapper.toDto(itemRequest);
+        ItemRequestDto itemRequestDto = toDtoWithItems(List.of(itemRequest)).get(0);
         itemRequestDto.setRequester(userDto);
         return itemRequestDto;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getAllUserRequest(long userId) {
         userService.getUserById(userId);
-        return requestsRepository.findAllByRequesterIdOrderByCreatedDesc(userId).stream()
-                .peek(itemRequest -> itemRequest.setItems(itemRepository.findAllByItemRequest(itemRequest)))
-                .map(RequestMapper::toDto)
-                .collect(Collectors.toList());
+        return toDtoWithItems(requestsRepository.findAllByRequesterIdOrderByCreatedDesc(userId));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getAllRequest(long userId, int from, int size) {
         UserMapper.toUser(userService.getUserById(userId));
-        Pageable page = PageRequest.of(from / size, size, Sort.by("created"));
-        return requestsRepository.findAllByRequesterIdIsNot(userId, page).stream()
-                .peek(itemRequest -> itemRequest.setItems(itemRepository.findAllByItemRequest(itemRequest)))
-                .map(RequestMapper::toDto)
-                .collect(Collectors.toList());
+        Pageable page = OffsetPageRequest.of(from, size, Sort.by("created"));
+        return toDtoWithItems(requestsRepository.findAllByRequesterIdIsNot(userId, page));
+    }
 
+    //вещи для всех запросов страницы одним запросом
+    private List<ItemRequestDto> toDtoWithItems(List<ItemRequest> itemRequests) {
+        if (itemRequests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, List<ItemDto>> itemsByRequest = itemRepository.findAllByRequestIds(itemRequests.stream()
+                        .map(ItemRequest::getId)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.groupingBy(ForRequestItemDto::getRequestId,
+                        Collectors.mapping(ItemMapper::toItemDto, Collectors.toList())));
+        return itemRequests.stream()
+                .map(itemRequest -> RequestMapper.toDto(itemRequest,
+                        itemsByRequest.getOrDefault(itemRequest.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
     }
 }
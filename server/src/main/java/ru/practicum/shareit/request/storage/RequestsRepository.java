@@ -1,13 +1,16 @@
 package ru.practicum.shareit.request.storage;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
 
 import java.util.List;
 
 public interface RequestsRepository extends JpaRepository<ItemRequest, Long> {
+    @EntityGraph(attributePaths = "requester")
     List<ItemRequest> findAllByRequesterIdOrderByCreatedDesc(long userId);
 
+    @EntityGraph(attributePaths = "requester")
     List<ItemRequest> findAllByRequesterIdIsNot(long userId, Pageable page);
 }
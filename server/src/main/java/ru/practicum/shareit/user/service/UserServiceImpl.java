@@ -26,14 +26,14 @@ public class UserServiceImpl implements UserService {
         return toUserDto(userRepository.save(toUser(userDto)));
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public UserDto getUserById(Long userId) {
         return toUserDto(userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException(String.format("user по id %d не найден", userId))));
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public List<UserDto> getAllUsers() {
         return userRepository.findAll().stream()
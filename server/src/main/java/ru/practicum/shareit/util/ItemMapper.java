@@ -1,5 +1,6 @@
 package ru.practicum.shareit.util;
 
+import ru.practicum.shareit.item.dto.ForRequestItemDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 
@@ -14,6 +15,16 @@ public class ItemMapper {
                 .build();
     }
 
+    public static ItemDto toItemDto(ForRequestItemDto item) {
+        return ItemDto.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .requestId(item.getRequestId())
+                .build();
+    }
+
     public static Item toItem(ItemDto itemDto) {
         return new Item(
                 itemDto.getId(),
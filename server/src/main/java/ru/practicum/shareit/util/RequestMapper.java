@@ -1,23 +1,24 @@
 package ru.practicum.shareit.util;
 
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.List;
 
 public class RequestMapper {
     public static ItemRequestDto toDto(ItemRequest itemRequest) {
+        return toDto(itemRequest, new ArrayList<>());
+    }
+
+    public static ItemRequestDto toDto(ItemRequest itemRequest, List<ItemDto> items) {
         return ItemRequestDto.builder()
                 .id(itemRequest.getId())
                 .description(itemRequest.getDescription())
                 .created(itemRequest.getCreated())
                 .requester(UserMapper.toUserDto(itemRequest.getRequester()))
-                .items(itemRequest.getItems() != null ? itemRequest.getItems()
-                        .stream()
-                        .map(ItemMapper::toItemDto)
-                        .collect(Collectors.toList())
-                        : new ArrayList<>())
+                .items(items)
                 .build();
     }
 
@@ -5,4 +5,5 @@ import lombok.experimental.UtilityClass;
 @UtilityClass
 public class Variables {
     public static final String HEADER_USER_ID = "X-Sharer-User-Id";
+    public static final String HEADER_NEXT_CURSOR = "X-Next-Cursor";
 }
\ No newline at end of file
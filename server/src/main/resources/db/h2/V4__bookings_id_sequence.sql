@@ -0,0 +1,2 @@
+-- id бронирований из последовательности блоками по 50: IDENTITY не дает Hibernate пакетировать вставки
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
@@ -1,5 +1,3 @@
-DROP TABLE IF EXISTS users, items, bookings, comments, requests;
-
 CREATE TABLE IF NOT EXISTS users
 (
     id    BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -55,3 +53,14 @@ CREATE TABLE IF NOT EXISTS comments
     CONSTRAINT fk_comments_item_id FOREIGN KEY (item_id) REFERENCES items (id),
     CONSTRAINT fk_comments_author_id FOREIGN KEY (author_id) REFERENCES users (id)
 );
+
+CREATE TABLE IF NOT EXISTS item_booking_summary
+(
+    item_id         BIGINT NOT NULL,
+    last_booking_id BIGINT,
+    next_booking_id BIGINT,
+    CONSTRAINT pk_item_booking_summary PRIMARY KEY (item_id),
+    CONSTRAINT fk_summary_item_id FOREIGN KEY (item_id) REFERENCES items (id),
+    CONSTRAINT fk_summary_last_booking_id FOREIGN KEY (last_booking_id) REFERENCES bookings (id),
+    CONSTRAINT fk_summary_next_booking_id FOREIGN KEY (next_booking_id) REFERENCES bookings (id)
+);
@@ -0,0 +1,14 @@
+-- бронирования букера: booker_id + сортировка по start
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_status_start ON bookings (booker_id, status, start_date DESC);
+
+-- бронирования владельца и last/next для item: item_id + сортировка по start
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings (item_id, start_date DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_start ON bookings (item_id, status, start_date);
+
+-- вещи владельца и вещи по запросу
+CREATE INDEX IF NOT EXISTS idx_items_owner_id ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS idx_items_request_id ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS idx_requests_requester_created ON requests (requester_id, created DESC);
+CREATE INDEX IF NOT EXISTS idx_comments_item_id ON comments (item_id);
@@ -0,0 +1,3 @@
+-- id бронирований из последовательности блоками по 50: IDENTITY не дает Hibernate пакетировать вставки
+CREATE SEQUENCE IF NOT EXISTS bookings_seq INCREMENT BY 50;
+SELECT setval('bookings_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM bookings), false);
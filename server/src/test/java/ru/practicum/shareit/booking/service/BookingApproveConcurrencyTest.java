@@ -0,0 +1,149 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.exception.BookingConflictException;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.ItemBookingSummaryRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//одновременные approve и approveAll пересекающихся бронирований одной вещи: подтверждается одно,
+//остальные получают конфликт (409)
+@SpringBootTest
+class BookingApproveConcurrencyTest {
+    private static final int SINGLE_APPROVALS = 4;
+    private static final int BATCHES = 2;
+    private static final int BATCH_SIZE = 2;
+    private static final int BOOKINGS = SINGLE_APPROVALS + BATCHES * BATCH_SIZE;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemBookingSummaryRepository summaryRepository;
+
+    @RepeatedTest(5)
+    void onlyOneOfOverlappingBookingsIsApproved() throws Exception {
+        approveConcurrently(false);
+    }
+
+    //вещь без строки проекции (например, из данных до ее появления): замок создается, а не пропускается
+    @RepeatedTest(5)
+    void onlyOneIsApprovedWhenItemHasNoSummaryRow() throws Exception {
+        approveConcurrently(true);
+    }
+
+    private void approveConcurrently(boolean withoutSummary) throws Exception {
+        long ownerId = newUser();
+        long bookerId = newUser();
+        long itemId = itemService.addItem(new ItemDto(null, "item", "description", true, null, null, null, null),
+                ownerId).getId();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            bookingIds.add(bookingService.addBooking(new BookingDtoShort(itemId, start.plusHours(i),
+                    start.plusDays(2)), bookerId).getId());
+        }
+        if (withoutSummary) {
+            summaryRepository.deleteById(itemId);
+        }
+
+        AtomicInteger approved = new AtomicInteger();
+        Queue<String> conflicts = new ConcurrentLinkedQueue<>();
+        CountDownLatch ready = new CountDownLatch(SINGLE_APPROVALS + BATCHES);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < SINGLE_APPROVALS; i++) {
+            long bookingId = bookingIds.get(i);
+            tasks.add(() -> {
+                awaitAll(ready);
+                try {
+                    bookingService.approve(bookingId, ownerId, true);
+                    approved.incrementAndGet();
+                } catch (BookingConflictException e) {
+                    conflicts.add(e.getMessage());
+                }
+                return null;
+            });
+        }
+        for (int i = 0; i < BATCHES; i++) {
+            List<BookingDecisionDto> decisions = new ArrayList<>();
+            for (int j = 0; j < BATCH_SIZE; j++) {
+                decisions.add(new BookingDecisionDto(bookingIds.get(SINGLE_APPROVALS + i * BATCH_SIZE + j), true));
+            }
+            tasks.add(() -> {
+                awaitAll(ready);
+                try {
+                    for (BookingBatchResultDto result : bookingService.approveAll(decisions, ownerId)) {
+                        if (result.getError() == null) {
+                            approved.incrementAndGet();
+                        } else {
+                            //ошибка записи пакета - сообщение BookingConflictException
+                            assertThat(result.getError()).contains("уже забронирована на эти даты");
+                            conflicts.add(result.getError());
+                        }
+                    }
+                } catch (BookingConflictException e) {
+                    decisions.forEach(decision -> conflicts.add(e.getMessage()));
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            //исключение, отличное от конфликта, пробрасывается из get и валит тест
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(approved.get()).isEqualTo(1);
+        assertThat(conflicts).hasSize(BOOKINGS - 1);
+        assertThat(bookingRepository.findAllById(bookingIds))
+                .filteredOn(booking -> booking.getStatus() == BookingStatus.APPROVED)
+                .hasSize(1);
+        assertThat(summaryRepository.existsById(itemId)).isTrue();
+    }
+
+    private long newUser() {
+        String name = UUID.randomUUID().toString();
+        return userService.addUser(new UserDto(null, name, name + "@mail.ru")).getId();
+    }
+
+    //все потоки стартуют одновременно, чтобы транзакции пересеклись
+    private static void awaitAll(CountDownLatch ready) throws InterruptedException {
+        ready.countDown();
+        ready.await();
+    }
+}
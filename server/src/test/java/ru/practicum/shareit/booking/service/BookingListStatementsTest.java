@@ -0,0 +1,127 @@
+package ru.practicum.shareit.booking.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//страница бронирований - один SQL-запрос: вещь и арендатор приходят с бронированием, а не догружаются по одному
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BookingListStatementsTest {
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long ownerId;
+    private Long bookerId;
+
+    //на каждое состояние по бронированию каждой из трех вещей владельца от каждого из двух арендаторов:
+    //на странице арендатора разные вещи, на странице владельца - разные арендаторы
+    @BeforeAll
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        User owner = userRepository.save(new User(null, "owner", "statements-owner@mail.ru"));
+        List<User> bookers = List.of(
+                userRepository.save(new User(null, "booker1", "statements-booker1@mail.ru")),
+                userRepository.save(new User(null, "booker2", "statements-booker2@mail.ru")));
+        ownerId = owner.getId();
+        bookerId = bookers.get(0).getId();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            items.add(itemRepository.save(new Item(null, "item" + i, "description", true, ownerId, null)));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>();
+        for (Item item : items) {
+            for (User booker : bookers) {
+                bookings.add(booking(item, booker, now.minusDays(1), now.plusDays(1), BookingStatus.APPROVED));
+                bookings.add(booking(item, booker, now.minusDays(10), now.minusDays(9), BookingStatus.APPROVED));
+                bookings.add(booking(item, booker, now.plusDays(10), now.plusDays(11), BookingStatus.APPROVED));
+                bookings.add(booking(item, booker, now.plusDays(20), now.plusDays(21), BookingStatus.WAITING));
+                bookings.add(booking(item, booker, now.plusDays(30), now.plusDays(31), BookingStatus.REJECTED));
+            }
+        }
+        bookingRepository.saveAll(bookings);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    void bookerPageIsOneStatement(String state) {
+        assertOneStatement(bookerId, () -> bookingService.getAllBookingsByUser(state, bookerId, 0, 20));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    void bookerCursorPageIsOneStatement(String state) {
+        assertOneStatement(bookerId, () -> bookingService.getAllBookingsByUser(state, bookerId, cursor(), 20));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    void ownerPageIsOneStatement(String state) {
+        assertOneStatement(ownerId, () -> bookingService.gettAllBookingsByOwner(state, ownerId, 0, 20));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    void ownerCursorPageIsOneStatement(String state) {
+        assertOneStatement(ownerId, () -> bookingService.gettAllBookingsByOwner(state, ownerId, cursor(), 20));
+    }
+
+    //пользователь, чьи бронирования запрашиваются, уже в кэше второго уровня: считается только сама страница
+    private void assertOneStatement(Long userId, Supplier<List<BookingDto>> page) {
+        userService.getUserById(userId);
+        statistics.clear();
+        List<BookingDto> bookings = page.get();
+        assertThat(bookings).hasSizeGreaterThan(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private static BookingCursor cursor() {
+        return new BookingCursor(LocalDateTime.now().plusYears(1), Long.MAX_VALUE);
+    }
+
+    private static Booking booking(Item item, User booker, LocalDateTime start, LocalDateTime end,
+                                   BookingStatus status) {
+        return Booking.builder()
+                .start(start)
+                .end(end)
+                .item(item)
+                .booker(booker)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//from, не кратный size, - смещение в строках, а не номер страницы
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BookingOffsetPageTest {
+    private static final int BOOKINGS = 7;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+
+    private Long ownerId;
+    private Long bookerId;
+
+    @BeforeAll
+    void setUp() {
+        ownerId = newUser();
+        bookerId = newUser();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < BOOKINGS; i++) {
+            Long itemId = itemService.addItem(new ItemDto(null, "item" + i, "description", true, null, null, null,
+                    null), ownerId).getId();
+            bookingService.addBooking(new BookingDtoShort(itemId, start.plusDays(i), start.plusDays(i + 1)),
+                    bookerId);
+        }
+    }
+
+    @Test
+    void bookerPageStartsAtFrom() {
+        List<Long> all = ids(bookingService.getAllBookingsByUser("ALL", bookerId, 0, BOOKINGS));
+
+        assertThat(ids(bookingService.getAllBookingsByUser("ALL", bookerId, 3, 2))).isEqualTo(all.subList(3, 5));
+        assertThat(ids(bookingService.getAllBookingsByUser("FUTURE", bookerId, 5, 4))).isEqualTo(all.subList(5, 7));
+    }
+
+    @Test
+    void ownerPageStartsAtFrom() {
+        List<Long> all = ids(bookingService.gettAllBookingsByOwner("ALL", ownerId, 0, BOOKINGS));
+
+        assertThat(ids(bookingService.gettAllBookingsByOwner("ALL", ownerId, 1, 3))).isEqualTo(all.subList(1, 4));
+    }
+
+    @Test
+    void itemPageStartsAtFrom() {
+        List<Long> all = itemService.getAllUsersItems(ownerId, 0, BOOKINGS).stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+
+        assertThat(itemService.getAllUsersItems(ownerId, 4, 3).stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList())).isEqualTo(all.subList(4, 7));
+    }
+
+    private Long newUser() {
+        String name = UUID.randomUUID().toString();
+        return userService.addUser(new UserDto(null, name, name + "@mail.ru")).getId();
+    }
+
+    private static List<Long> ids(List<BookingDto> bookings) {
+        return bookings.stream()
+                .map(BookingDto::getId)
+                .collect(Collectors.toList());
+    }
+}
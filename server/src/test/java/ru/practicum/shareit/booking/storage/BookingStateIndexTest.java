@@ -0,0 +1,162 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.metrics.SqlStatementCounter;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//планы запросов списков бронирований по состояниям: чтение bookings идет по индексам idx_bookings_* из V2
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BookingStateIndexTest {
+    //доступ к bookings в плане H2: /* PUBLIC.<индекс>: <условия по индексу> */
+    private static final Pattern BOOKINGS_ACCESS =
+            Pattern.compile("\"BOOKINGS\" \"\\w+\"\\s*/\\* PUBLIC\\.(\\w+): ([^*]*)\\*/");
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long ownerId;
+    private Long bookerId;
+
+    //планировщик H2 учитывает число строк и селективность: данные ближе к рабочим, чем пустые таблицы
+    @BeforeAll
+    void setUp() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            users.add(userRepository.save(new User(null, "plan" + i, "plan" + i + "@mail.ru")));
+        }
+        ownerId = users.get(0).getId();
+        bookerId = users.get(5).getId();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(itemRepository.save(new Item(null, "item" + i, "description", true,
+                    users.get(i % 5).getId(), null)));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BookingStatus[] statuses = BookingStatus.values();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime start = now.minusDays(1000).plusDays(i);
+            bookings.add(Booking.builder()
+                    .start(start)
+                    .end(start.plusDays(2))
+                    .item(items.get(i % items.size()))
+                    .booker(users.get(5 + i % 5))
+                    .status(statuses[i % statuses.length])
+                    .build());
+        }
+        bookingRepository.saveAll(bookings);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    //ALL без курсора ограничен только booker_id: H2 создает для внешнего ключа свой индекс по одному столбцу
+    //и при равной селективности выбирает более короткий индекс. В PostgreSQL индексов внешних ключей нет
+    @ParameterizedTest
+    @CsvSource({
+            "ALL,",
+            "CURRENT, IDX_BOOKINGS_BOOKER_START",
+            "PAST, IDX_BOOKINGS_BOOKER_START",
+            "FUTURE, IDX_BOOKINGS_BOOKER_START",
+            "WAITING, IDX_BOOKINGS_BOOKER_STATUS_START",
+            "REJECTED, IDX_BOOKINGS_BOOKER_STATUS_START"
+    })
+    void bookerPageUsesStateIndex(String state, String index) {
+        sqlStatementCounter.start();
+        bookingService.getAllBookingsByUser(state, bookerId, 0, 10);
+        assertBookingsIndex(index, "BOOKER_ID");
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "ALL, IDX_BOOKINGS_BOOKER_START",
+            "CURRENT, IDX_BOOKINGS_BOOKER_START",
+            "PAST, IDX_BOOKINGS_BOOKER_START",
+            "FUTURE, IDX_BOOKINGS_BOOKER_START",
+            "WAITING, IDX_BOOKINGS_BOOKER_STATUS_START",
+            "REJECTED, IDX_BOOKINGS_BOOKER_STATUS_START"
+    })
+    void bookerCursorPageUsesStateIndex(String state, String index) {
+        sqlStatementCounter.start();
+        bookingService.getAllBookingsByUser(state, bookerId, new BookingCursor(LocalDateTime.now(), Long.MAX_VALUE),
+                10);
+        assertBookingsIndex(index, "BOOKER_ID");
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "ALL,",
+            "CURRENT, IDX_BOOKINGS_ITEM_START",
+            "PAST, IDX_BOOKINGS_ITEM_START",
+            "FUTURE, IDX_BOOKINGS_ITEM_START",
+            "WAITING, IDX_BOOKINGS_ITEM_STATUS_START",
+            "REJECTED, IDX_BOOKINGS_ITEM_STATUS_START"
+    })
+    void ownerPageUsesStateIndex(String state, String index) {
+        sqlStatementCounter.start();
+        bookingService.gettAllBookingsByOwner(state, ownerId, 0, 10);
+        assertBookingsIndex(index, "ITEM_ID");
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "ALL, IDX_BOOKINGS_ITEM_START",
+            "CURRENT, IDX_BOOKINGS_ITEM_START",
+            "PAST, IDX_BOOKINGS_ITEM_START",
+            "FUTURE, IDX_BOOKINGS_ITEM_START",
+            "WAITING, IDX_BOOKINGS_ITEM_STATUS_START",
+            "REJECTED, IDX_BOOKINGS_ITEM_STATUS_START"
+    })
+    void ownerCursorPageUsesStateIndex(String state, String index) {
+        sqlStatementCounter.start();
+        bookingService.gettAllBookingsByOwner(state, ownerId, new BookingCursor(LocalDateTime.now(), Long.MAX_VALUE),
+                10);
+        assertBookingsIndex(index, "ITEM_ID");
+    }
+
+    //index == null: любой индекс, лишь бы поиск шел по leadingColumn, а не перебором таблицы
+    private void assertBookingsIndex(String index, String leadingColumn) {
+        List<String> queries = sqlStatementCounter.finish().getStatements().stream()
+                .filter(sql -> sql.contains(" bookings "))
+                .collect(Collectors.toList());
+        assertThat(queries).hasSize(1);
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + queries.get(0), String.class));
+        Matcher access = BOOKINGS_ACCESS.matcher(plan);
+        assertThat(access.find()).as(plan).isTrue();
+        if (index != null) {
+            assertThat(access.group(1)).as(plan).isEqualTo(index);
+        }
+        assertThat(access.group(2)).as(plan).contains(leadingColumn + " = ");
+    }
+}
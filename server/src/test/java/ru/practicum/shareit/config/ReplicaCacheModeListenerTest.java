@@ -0,0 +1,43 @@
+package ru.practicum.shareit.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//реплика - та же база H2 в памяти, маршрутизация readOnly-транзакций как с настоящей репликой
+@SpringBootTest(properties = "replica-datasource.urls=jdbc:h2:mem:shareit;MODE=PostgreSQL")
+class ReplicaCacheModeListenerTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void replicaReadDoesNotPopulateSecondLevelCache() {
+        Long userId = userService.addUser(new UserDto(null, "replica", "replica@mail.ru")).getId();
+        entityManagerFactory.getCache().evictAll();
+
+        assertThat(userService.getUserById(userId).getName()).isEqualTo("replica");
+        assertThat(entityManagerFactory.getCache().contains(User.class, userId)).isFalse();
+
+        //чтение в пишущей транзакции идет в основную БД и кэшируется как раньше
+        transactionTemplate.executeWithoutResult(status -> userRepository.findById(userId));
+        assertThat(entityManagerFactory.getCache().contains(User.class, userId)).isTrue();
+
+        assertThat(userService.getUserById(userId).getName()).isEqualTo("replica");
+        assertThat(entityManagerFactory.getCache().contains(User.class, userId)).isTrue();
+    }
+}
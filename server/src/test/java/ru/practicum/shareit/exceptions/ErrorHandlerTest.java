@@ -0,0 +1,33 @@
+package ru.practicum.shareit.exceptions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.practicum.shareit.exceptions.model.ErrorResponse;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//ошибка ввода-вывода до начала ответа отдается как 500, после начала выгрузки - только в лог
+class ErrorHandlerTest {
+    private final ErrorHandler errorHandler = new ErrorHandler();
+
+    @Test
+    void ioExceptionBeforeResponseIsCommittedIsServerError() {
+        ResponseEntity<ErrorResponse> response = errorHandler.handleIOException(new IOException("диск недоступен"),
+                new MockHttpServletResponse());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getBody().getError()).isEqualTo("диск недоступен");
+    }
+
+    @Test
+    void ioExceptionAfterResponseIsCommittedIsSwallowed() {
+        MockHttpServletResponse committed = new MockHttpServletResponse();
+        committed.setCommitted(true);
+
+        assertThat(errorHandler.handleIOException(new IOException("Broken pipe"), committed)).isNull();
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.exceptions.model.BadRequestException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+//метрика сервиса не подменяет его результат: state = null записывается как UNKNOWN
+class MetricsAspectTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MetricsAspect metricsAspect = new MetricsAspect(meterRegistry);
+
+    @Test
+    void nullStateKeepsServiceException() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint(null);
+        when(joinPoint.proceed()).thenThrow(new BadRequestException("Unknown state: null"));
+
+        assertThatThrownBy(() -> metricsAspect.timeService(joinPoint))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Unknown state: null");
+        assertThat(meterRegistry.get("shareit.service.invocations")
+                .tag("state", "UNKNOWN")
+                .tag("exception", "BadRequestException")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void nullStateKeepsServiceResult() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint(null);
+        when(joinPoint.proceed()).thenReturn("result");
+
+        assertThat(metricsAspect.timeService(joinPoint)).isEqualTo("result");
+        assertThat(meterRegistry.get("shareit.service.invocations").tag("state", "UNKNOWN").timer().count())
+                .isEqualTo(1);
+    }
+
+    private static ProceedingJoinPoint joinPoint(Object state) {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getDeclaringType()).thenReturn(BookingServiceImpl.class);
+        when(signature.getName()).thenReturn("getAllBookingsByUser");
+        when(signature.getParameterNames()).thenReturn(new String[]{"state", "userId"});
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{state, 1L});
+        return joinPoint;
+    }
+}
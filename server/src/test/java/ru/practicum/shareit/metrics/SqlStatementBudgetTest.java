@@ -0,0 +1,158 @@
+package ru.practicum.shareit.metrics;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.util.Variables.HEADER_USER_ID;
+
+//бюджет SQL-запросов проверяется фильтром на настоящих HTTP-запросах: в профиле test превышение - ошибка 500
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SqlStatementBudgetTest {
+    private static final int BOOKINGS = 6;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+
+    private Long ownerId;
+    private Long bookerId;
+    private final List<Long> bookingIds = new ArrayList<>();
+
+    @BeforeAll
+    void setUp() throws Exception {
+        ownerId = newUser();
+        bookerId = newUser();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < BOOKINGS; i++) {
+            Long itemId = itemService.addItem(new ItemDto(null, "item" + i, "description", true, null, null, null,
+                    null), ownerId).getId();
+            bookingIds.add(bookingService.addBooking(new BookingDtoShort(itemId, start, start.plusDays(1)),
+                    bookerId).getId());
+        }
+        mockMvc.perform(post("/requests")
+                        .header(HEADER_USER_ID, bookerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\": \"нужна дрель\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void listingEndpointsStayWithinBudget() throws Exception {
+        mockMvc.perform(get("/bookings").header(HEADER_USER_ID, bookerId).param("state", "ALL"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/bookings/owner").header(HEADER_USER_ID, ownerId).param("state", "FUTURE"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/items").header(HEADER_USER_ID, ownerId))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/requests").header(HEADER_USER_ID, bookerId))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/requests/all").header(HEADER_USER_ID, ownerId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/sqlstatements"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.endpoints[?(@.endpoint == 'GET /items')].maxStatements",
+                        everyItem(lessThanOrEqualTo(20))))
+                .andExpect(jsonPath("$.endpoints[*].overBudget", everyItem(is(0))));
+    }
+
+    @Test
+    void loopedQueryIsReportedAsRepeated() throws Exception {
+        mockMvc.perform(get("/test/bookings-one-by-one").param("ids", bookingIds.stream()
+                        .map(String::valueOf)
+                        .toArray(String[]::new)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/sqlstatements"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.endpoints[?(@.endpoint == 'GET /test/bookings-one-by-one')].repeats",
+                        contains(BOOKINGS)))
+                .andExpect(jsonPath("$.endpoints[?(@.endpoint == 'GET /test/bookings-one-by-one')].repeatedSql",
+                        hasItem(containsString("from bookings"))));
+    }
+
+    @Nested
+    @TestPropertySource(properties = "sql-budget.max-statements=1")
+    class LoweredBudget {
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Test
+        void requestOverBudgetFails() throws Exception {
+            mockMvc.perform(get("/items").header(HEADER_USER_ID, ownerId))
+                    .andExpect(status().isInternalServerError())
+                    .andExpect(jsonPath("$.error", containsString("больше 1 SQL-запросов")));
+        }
+    }
+
+    private Long newUser() {
+        String name = UUID.randomUUID().toString();
+        return userService.addUser(new UserDto(null, name, name + "@mail.ru")).getId();
+    }
+
+    @TestConfiguration
+    static class LoopConfig {
+        @Bean
+        LoopController loopController(BookingRepository bookingRepository) {
+            return new LoopController(bookingRepository);
+        }
+    }
+
+    //загрузка бронирований по одному в цикле - тот самый N+1, который должен заметить отчет
+    @RestController
+    static class LoopController {
+        private final BookingRepository bookingRepository;
+
+        LoopController(BookingRepository bookingRepository) {
+            this.bookingRepository = bookingRepository;
+        }
+
+        @GetMapping("/test/bookings-one-by-one")
+        int findOneByOne(@RequestParam List<Long> ids) {
+            ids.forEach(bookingRepository::findById);
+            return ids.size();
+        }
+    }
+}